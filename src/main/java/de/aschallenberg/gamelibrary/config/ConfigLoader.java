@@ -2,7 +2,10 @@ package de.aschallenberg.gamelibrary.config;
 
 import lombok.extern.log4j.Log4j2;
 
+import java.time.Duration;
+import java.time.temporal.TemporalUnit;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 
@@ -18,6 +21,8 @@ public class ConfigLoader {
 		ARG_TO_PROPERTY_KEY.put("port", "platform.port");
 		ARG_TO_PROPERTY_KEY.put("ssl", "platform.ssl");
 		ARG_TO_PROPERTY_KEY.put("token", "platform.game.token");
+		ARG_TO_PROPERTY_KEY.put("training", "platform.training");
+		ARG_TO_PROPERTY_KEY.put("batching", "platform.batching");
 	}
 
 	private ConfigLoader() {}
@@ -37,6 +42,8 @@ public class ConfigLoader {
 	 *                 <li>port: Overrides the platform port.</li>
 	 *                 <li>ssl: Enables or disables SSL for the platform.</li>
 	 *                 <li>token: Sets the game implementation token for the platform.</li>
+	 *                 <li>training: Disconnects right after the registration, e.g. for an AppCDS training run.</li>
+	 *                 <li>batching: Offers the platform batch frames.</li>
 	 *             </ul>
 	 */
 	public static void load(String[] args) {
@@ -74,4 +81,69 @@ public class ConfigLoader {
 	public static String get(String key) {
 		return PROPERTIES.getProperty(key);
 	}
+
+	/**
+	 * @return Whether the property has a value that is not blank.
+	 */
+	public static boolean isSet(String key) {
+		return getTrimmed(key) != null;
+	}
+
+	public static boolean getBoolean(String key) {
+		return Boolean.parseBoolean(getTrimmed(key));
+	}
+
+	/**
+	 * @return The value of the property or the default value if it is not set.
+	 * @throws NumberFormatException If the value is not an integer.
+	 */
+	public static int getInt(String key, int defaultValue) {
+		String value = getTrimmed(key);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	/**
+	 * @return The value of the property or the default value if it is not set.
+	 * @throws NumberFormatException If the value is not an integer.
+	 */
+	public static long getLong(String key, long defaultValue) {
+		String value = getTrimmed(key);
+		return value == null ? defaultValue : Long.parseLong(value);
+	}
+
+	/**
+	 * @return The value of the property or the default value if it is not set.
+	 * @throws NumberFormatException If the value is not a number.
+	 */
+	public static double getDouble(String key, double defaultValue) {
+		String value = getTrimmed(key);
+		return value == null ? defaultValue : Double.parseDouble(value);
+	}
+
+	/**
+	 * Reads a duration given as a number of the unit, e.g. {@code platform.drain.timeoutSeconds=30}.
+	 *
+	 * @return The duration or the default value, which may be {@code null}, if the property is not set.
+	 * @throws NumberFormatException If the value is not an integer.
+	 */
+	public static Duration getDuration(String key, TemporalUnit unit, Duration defaultValue) {
+		String value = getTrimmed(key);
+		return value == null ? defaultValue : Duration.of(Long.parseLong(value), unit);
+	}
+
+	/**
+	 * Reads a constant of the enum, ignoring the case of the value, e.g. {@code drop} for {@code DROP}.
+	 *
+	 * @return The constant or the default value if the property is not set.
+	 * @throws IllegalArgumentException If the enum has no such constant.
+	 */
+	public static <E extends Enum<E>> E getEnum(String key, Class<E> type, E defaultValue) {
+		String value = getTrimmed(key);
+		return value == null ? defaultValue : Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+	}
+
+	private static String getTrimmed(String key) {
+		String value = PROPERTIES.getProperty(key);
+		return value == null || value.isBlank() ? null : value.trim();
+	}
 }
@@ -0,0 +1,94 @@
+package de.aschallenberg.gamelibrary.game;
+
+import de.aschallenberg.communication.dto.BotData;
+import de.aschallenberg.gamelibrary.metrics.LatencyHistogram;
+import de.aschallenberg.gamelibrary.metrics.Metrics;
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Response times of the bots of the current game run, measured from sending a move request to a bot until its move
+ * is received.
+ * <p>
+ * The times are recorded automatically by {@link Game#sendMove(Object, BotData)} and the library's move handling.
+ * Every response time is also added to the process-wide histogram {@value #METRIC_NAME} in {@link Metrics}.
+ * </p>
+ */
+public final class BotResponseTimes {
+	public static final String METRIC_NAME = "bot.responseTime";
+
+	private final Map<BotData, Long> pendingSince = new HashMap<>();
+	private final Map<BotData, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+	BotResponseTimes() {}
+
+	/**
+	 * Returns the response times of the given bot in the current game run.
+	 *
+	 * @param bot The bot.
+	 * @return The histogram of the response times. It is empty if the bot has not responded yet.
+	 */
+	public LatencyHistogram get(@NonNull BotData bot) {
+		LatencyHistogram histogram = histograms.get(bot);
+		return histogram != null ? histogram : new LatencyHistogram();
+	}
+
+	/**
+	 * @return The response times of all bots that have responded in the current game run.
+	 */
+	public Map<BotData, LatencyHistogram> getAll() {
+		return Map.copyOf(histograms);
+	}
+
+	/**
+	 * Returns how long the given bot has been thinking about its current move.
+	 *
+	 * @param bot The bot.
+	 * @return The elapsed time in nanoseconds or -1 if no move of the bot is pending.
+	 */
+	public long getPendingNanos(@NonNull BotData bot) {
+		Long sentAt = pendingSince.get(bot);
+		return sentAt == null ? -1 : System.nanoTime() - sentAt;
+	}
+
+	/**
+	 * @return The approximate number of bytes the response times occupy on the heap.
+	 */
+	public long estimateMemoryBytes() {
+		return histograms.values().stream().mapToLong(LatencyHistogram::estimateMemoryBytes).sum();
+	}
+
+	void moveSent(BotData bot) {
+		pendingSince.put(bot, System.nanoTime());
+	}
+
+	void moveReceived(BotData bot) {
+		Long sentAt = pendingSince.remove(bot);
+		if (sentAt == null) {
+			return;
+		}
+
+		long nanos = System.nanoTime() - sentAt;
+		histograms.computeIfAbsent(bot, key -> new LatencyHistogram()).recordNanos(nanos);
+		Metrics.histogram(METRIC_NAME).recordNanos(nanos);
+	}
+
+	void moveTimedOut(BotData bot) {
+		pendingSince.remove(bot);
+	}
+
+	void reset() {
+		pendingSince.clear();
+		histograms.clear();
+	}
+
+	String summary() {
+		StringBuilder summary = new StringBuilder("Response times:");
+		histograms.forEach((bot, histogram) -> summary.append(System.lineSeparator())
+				.append(bot.getName()).append(" (").append(bot.getOwnerName()).append("): ").append(histogram));
+		return summary.toString();
+	}
+}
@@ -0,0 +1,39 @@
+package de.aschallenberg.gamelibrary.game;
+
+import de.aschallenberg.gamelibrary.config.ConfigLoader;
+import lombok.experimental.UtilityClass;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The fork-join pool shared by all games of this process for {@link Game#compute}.
+ * <p>
+ * The parallelism can be configured with {@code platform.compute.parallelism} and defaults to the number of
+ * available processors.
+ * </p>
+ */
+@UtilityClass
+class ComputePool {
+
+	static ForkJoinPool get() {
+		return Holder.POOL;
+	}
+
+	private static final class Holder {
+		private static final ForkJoinPool POOL = new ForkJoinPool(
+				parallelism(),
+				pool -> {
+					var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+					thread.setName("game-compute-" + thread.getPoolIndex());
+					thread.setDaemon(true);
+					return thread;
+				},
+				null,
+				false
+		);
+
+		private static int parallelism() {
+			return ConfigLoader.getInt("platform.compute.parallelism", Runtime.getRuntime().availableProcessors());
+		}
+	}
+}
@@ -13,6 +13,12 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Abstract class representing a game. You must extend this class to create your own game.
@@ -33,6 +39,44 @@ public abstract class Game {
 	@Getter
 	private GameData gameData;
 
+	/**
+	 * Response times of the bots in the current game run. Can be used, for example, to weight scores or to detect
+	 * slow bots before the platform times them out.
+	 */
+	@Getter
+	private final BotResponseTimes responseTimes = new BotResponseTimes();
+
+	/**
+	 * Sends the messages of this game over its connection to the platform. Set by the library.
+	 */
+	private MessageSender messageSender;
+
+	/**
+	 * Runs callbacks in the same context as the callbacks of the platform's messages. Set by the library.
+	 */
+	private Executor callbackExecutor;
+
+	/**
+	 * Completes when the callbacks of all computations started so far have run.
+	 */
+	private CompletableFuture<Void> pendingCallbacks = CompletableFuture.completedFuture(null);
+
+	/**
+	 * Incremented whenever a game run starts or ends, so results of computations of a previous run are discarded.
+	 */
+	private int run;
+
+	/**
+	 * Whether a game run has started and has neither finished nor been interrupted yet.
+	 */
+	@Getter
+	private boolean running;
+
+	/**
+	 * Approximate heap size of the current game data, see {@link #estimateMemoryBytes()}.
+	 */
+	private long gameDataBytes;
+
 	/**
 	 * Called when the platform signals that the game should start.
 	 *
@@ -40,6 +84,10 @@ public abstract class Game {
 	 */
 	public final void onStartGame(GameData gameData) {
 		this.gameData = gameData;
+		this.gameDataBytes = estimateHeapBytes(gameData);
+		run++;
+		running = true;
+		responseTimes.reset();
 		onStartGame();
 	}
 
@@ -59,6 +107,18 @@ public abstract class Game {
 	 */
 	public abstract void onMoveReceived(BotData sender, Object move);
 
+	/**
+	 * Called by the {@link GameDispatcher} when the platform forwards a move of a bot. Records the response time of
+	 * the bot and passes the move on to {@link #onMoveReceived(BotData, Object)}.
+	 *
+	 * @param sender The bot that made the move.
+	 * @param move   The move.
+	 */
+	final void handleMoveReceived(BotData sender, Object move) {
+		responseTimes.moveReceived(sender);
+		onMoveReceived(sender, move);
+	}
+
 	/**
 	 * Called when the platform forwards an update message from a bot to this game. This method is used to handle any
 	 * incoming data for actions that are not a move or start.
@@ -103,6 +163,15 @@ public abstract class Game {
 		resetGame();
 	}
 
+	/**
+	 * Called by the {@link GameDispatcher} when the game is interrupted. Discards the results of running computations
+	 * and passes the interrupt on to {@link #onInterruptGame()}.
+	 */
+	final void handleInterruptGame() {
+		endRun();
+		onInterruptGame();
+	}
+
 	/**
 	 * Called when a Bot of this game disconnected. By default, the game will be reset.
 	 * This method can be overridden to implement a better bot disconnect handling.
@@ -110,23 +179,41 @@ public abstract class Game {
 	 * @param botData The Bot that disconnected
 	 */
 	public void onBotDisconnected(BotData botData) {
+		endRun();
 		resetGame();
-		MessageSender.sendMessage(new GameInterruptPayload());
+		messageSender.send(new GameInterruptPayload());
 	}
 
 	public abstract void onBotTimedOut(BotData botData);
 
+	/**
+	 * Called by the {@link GameDispatcher} when the platform reports a timed out bot. Discards the pending response
+	 * time of the bot and passes the bot on to {@link #onBotTimedOut(BotData)}.
+	 *
+	 * @param botData The bot that timed out.
+	 */
+	final void handleBotTimedOut(BotData botData) {
+		responseTimes.moveTimedOut(botData);
+		onBotTimedOut(botData);
+	}
+
 	/**
 	 * Sends a message to the platform indicating that the game has finished.
 	 * <p>
 	 * This method sends a message of type FINISHED to the platform, including the scores of the bots.
+	 * Before that, the response times of the bots are sent as a log message.
 	 * After that the method will clean up the game as in {@code onInterruptGame()} defined.
 	 * </p>
 	 *
 	 * @param scores A map containing the bots and their corresponding scores.
 	 */
 	protected void sendFinished(Map<BotData, Integer> scores) {
-		MessageSender.sendMessage(new GameFinishedPayload(scores));
+		String responseTimesSummary = responseTimes.summary();
+		log.debug(responseTimesSummary);
+		sendLog(responseTimesSummary);
+
+		endRun();
+		messageSender.send(new GameFinishedPayload(scores));
 		resetGame();
 	}
 
@@ -140,20 +227,32 @@ public abstract class Game {
 	 * @param botData The bot to be disqualified.
 	 */
 	protected void disqualifyBot(BotData botData) {
-		MessageSender.sendMessage(new DisqualifyPayload(botData), gameData.getBots());
+		messageSender.send(new DisqualifyPayload(botData), gameData.getBots());
+	}
+
+	/**
+	 * Called by the {@link GameDispatcher} when a bot exceeded the configured rate limit and the policy is
+	 * {@code disqualify}. Disqualifies the bot with {@link #disqualifyBot(BotData)}.
+	 *
+	 * @param botData The bot that flooded the game with messages.
+	 */
+	final void handleBotFlooding(BotData botData) {
+		disqualifyBot(botData);
 	}
 
 	/**
 	 * Sends a move message to a single bot.
 	 * <p>
 	 * This method sends a message of type MOVE to the platform, including the specified object and bot.
+	 * The time until the move of the bot arrives is recorded in {@link #getResponseTimes()}.
 	 * </p>
 	 *
 	 * @param move      The object representing the move.
 	 * @param recipient The bot to which the move message will be sent.
 	 */
 	protected void sendMove(Object move, BotData recipient) {
-		MessageSender.sendMessage(new MovePayload<>(move), List.of(recipient));
+		responseTimes.moveSent(recipient);
+		messageSender.send(new MovePayload<>(move), List.of(recipient));
 	}
 
 	/**
@@ -165,7 +264,7 @@ public abstract class Game {
 	 * @param recipients The list of bots to which the message will be sent.
 	 */
 	protected final void sendGameUpdate(@NonNull Object gameUpdate, @NonNull List<BotData> recipients) {
-		MessageSender.sendMessage(new GameUpdatePayload<>(gameUpdate), recipients);
+		messageSender.send(new GameUpdatePayload<>(gameUpdate), recipients);
 	}
 
 	/**
@@ -189,7 +288,7 @@ public abstract class Game {
 	 * @param logMessage The log message to be sent.
 	 */
 	protected final void sendLog(@NonNull String logMessage) {
-		MessageSender.sendMessage(new LogPayload(logMessage));
+		messageSender.send(new LogPayload(logMessage));
 	}
 
 	/**
@@ -202,6 +301,128 @@ public abstract class Game {
 	 * @param recipient    The bot to which the error message will be sent.
 	 */
 	protected final void sendError(@NonNull String errorMessage, @NonNull BotData recipient) {
-		MessageSender.sendMessage(new ErrorPayload(errorMessage), List.of(recipient));
+		messageSender.send(new ErrorPayload(errorMessage), List.of(recipient));
+	}
+
+	/**
+	 * Sets the sender for the connection this game is hosted on. This is done by the {@link GameDispatcher}.
+	 *
+	 * @param messageSender The sender.
+	 */
+	final void setMessageSender(@NonNull MessageSender messageSender) {
+		this.messageSender = messageSender;
+	}
+
+	/**
+	 * Sets the executor that runs the callbacks of {@link #compute} in the same context as the callbacks of the
+	 * platform's messages. This is done by the {@link GameDispatcher}.
+	 * <p>
+	 * The executor must never run a task on the calling thread, as the calling thread may be the one that calls
+	 * {@code compute} from within a callback.
+	 * </p>
+	 *
+	 * @param callbackExecutor The executor.
+	 */
+	final void setCallbackExecutor(@NonNull Executor callbackExecutor) {
+		this.callbackExecutor = callbackExecutor;
+	}
+
+	/**
+	 * Runs CPU-heavy work, e.g. an expensive scoring, in the shared fork-join pool instead of the thread that handles
+	 * the platform's messages.
+	 * <p>
+	 * The callback is called with the result in the same context as the other callbacks of this class, so it may use
+	 * all methods of this class, e.g. {@code sendGameUpdate} or {@code sendFinished}. It is never called before the
+	 * current callback, e.g. the {@code onMoveReceived} that started the computation, has returned, even if the
+	 * computation finishes right away. Callbacks are called in the order in which the computations were started. If
+	 * the game run finished or was interrupted in the meantime, the result is discarded.
+	 * </p>
+	 * <pre>{@code
+	 * compute(() -> evaluate(board), scores -> sendFinished(scores));
+	 * }</pre>
+	 *
+	 * @param task     The work to run.
+	 * @param callback The callback for the result.
+	 * @param <T>      The type of the result.
+	 */
+	protected final <T> void compute(@NonNull Supplier<T> task, @NonNull Consumer<T> callback) {
+		enqueue(CompletableFuture.supplyAsync(task, ComputePool.get()), callback);
+	}
+
+	/**
+	 * Runs a {@link ForkJoinTask}, e.g. a {@link java.util.concurrent.RecursiveTask}, in the shared fork-join pool.
+	 * Use this to split the work, e.g. to evaluate all win patterns or candidate moves in parallel. Otherwise, it
+	 * behaves like {@link #compute(Supplier, Consumer)}.
+	 *
+	 * @param task     The task to run.
+	 * @param callback The callback for the result.
+	 * @param <T>      The type of the result.
+	 */
+	protected final <T> void compute(@NonNull ForkJoinTask<T> task, @NonNull Consumer<T> callback) {
+		enqueue(CompletableFuture.supplyAsync(task::invoke, ComputePool.get()), callback);
+	}
+
+	/**
+	 * Called when a computation started with {@code compute} failed. By default, the error is logged and the game is
+	 * interrupted.
+	 *
+	 * @param error The error thrown by the computation.
+	 */
+	protected void onComputeFailed(Throwable error) {
+		log.error("Computation failed", error);
+		messageSender.send(new GameInterruptPayload());
+		handleInterruptGame();
+	}
+
+	/**
+	 * Estimates how much heap this game occupies. The value is reported in the metrics, so slowly growing games can
+	 * be spotted before the instance runs out of memory.
+	 * <p>
+	 * By default, the game data and the response times are counted. Override this method to add your own state, e.g.
+	 * the board.
+	 * </p>
+	 *
+	 * @return The approximate number of bytes.
+	 */
+	public long estimateMemoryBytes() {
+		return gameDataBytes + responseTimes.estimateMemoryBytes();
+	}
+
+	/**
+	 * Rough estimate: Java objects take a few times the size of their JSON representation on the heap.
+	 */
+	private long estimateHeapBytes(Object object) {
+		try {
+			return jsonObjectMapper.writeValueAsBytes(object).length * 4L;
+		} catch (Exception e) {
+			return 0;
+		}
+	}
+
+	private void endRun() {
+		run++;
+		running = false;
+	}
+
+	/**
+	 * Chains the callback behind the callbacks of all computations started before. The callback executor queues it
+	 * even if everything is complete already, so it runs after the current callback.
+	 */
+	private <T> void enqueue(CompletableFuture<T> result, Consumer<T> callback) {
+		int startedInRun = run;
+
+		pendingCallbacks = CompletableFuture.allOf(pendingCallbacks, result).handleAsync((ignored, ignoredError) -> {
+			if (startedInRun != run) {
+				log.debug("Discarding result of a computation of a previous game run");
+				return null;
+			}
+
+			try {
+				callback.accept(result.join());
+			} catch (Exception e) {
+				onComputeFailed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+			}
+			return null;
+		}, callbackExecutor);
 	}
 }
@@ -0,0 +1,158 @@
+package de.aschallenberg.gamelibrary.game;
+
+import de.aschallenberg.communication.dto.BotData;
+import de.aschallenberg.communication.dto.GameData;
+import de.aschallenberg.communication.messages.Payload;
+import de.aschallenberg.gamelibrary.websocket.MessageSender;
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Selects the game for a game start of one connection by looking up its module in a table that is built once per
+ * connection, and passes the platform's messages on to that game.
+ * <p>
+ * Every factory gets its own game instance, which is created on the first start of one of its modules and reused
+ * afterward. All modules handled by the default factory therefore share one instance.
+ * </p>
+ * <p>
+ * The dispatcher is the only way into the library hooks of a {@link Game}. It only reaches the games it created
+ * itself, so neither a game nor any other caller can feed moves into a hosted game or replace its sender.
+ * </p>
+ */
+public final class GameDispatcher {
+	private final Map<String, Supplier<? extends Game>> moduleFactories;
+	private final Supplier<? extends Game> defaultFactory;
+	private final MessageSender messageSender;
+	private final Executor callbackExecutor;
+	private final Map<Supplier<? extends Game>, Game> games = new HashMap<>();
+
+	/**
+	 * The game of the current or last game run or {@code null} if no game was started yet.
+	 */
+	private Game game;
+
+	GameDispatcher(
+			Map<String, Supplier<? extends Game>> moduleFactories,
+			Supplier<? extends Game> defaultFactory,
+			MessageSender messageSender,
+			Executor callbackExecutor
+	) {
+		this.moduleFactories = moduleFactories;
+		this.defaultFactory = defaultFactory;
+		this.messageSender = messageSender;
+		this.callbackExecutor = callbackExecutor;
+	}
+
+	/**
+	 * Selects the game for the module of the game data and starts it. If the previous game run belongs to another
+	 * game instance and is still running, it is interrupted first, so its pending computations cannot deliver their
+	 * results into the new game run.
+	 *
+	 * @param gameData The game data of the game start.
+	 * @return {@code false} if no factory is registered for the module.
+	 */
+	public boolean startGame(@NonNull GameData gameData) {
+		Game next = gameFor(gameData.getModule());
+		if (game != null && game != next && game.isRunning()) {
+			game.handleInterruptGame();
+		}
+
+		game = next;
+		if (game == null) {
+			return false;
+		}
+
+		game.onStartGame(gameData);
+		return true;
+	}
+
+	/**
+	 * @return Whether the current game run has neither finished nor been interrupted yet.
+	 */
+	public boolean isGameRunning() {
+		return game != null && game.isRunning();
+	}
+
+	public void moveReceived(@NonNull BotData sender, Object move) {
+		if (game != null) {
+			game.handleMoveReceived(sender, move);
+		}
+	}
+
+	public void gameUpdateReceived(@NonNull BotData sender, Object gameUpdate) {
+		if (game != null) {
+			game.onGameUpdateReceived(sender, gameUpdate);
+		}
+	}
+
+	public void otherMessageReceived(@NonNull BotData sender, @NonNull Payload payload) {
+		if (game != null) {
+			game.onOtherMessageReceived(sender, payload);
+		}
+	}
+
+	public void botTimedOut(BotData bot) {
+		if (game != null) {
+			game.handleBotTimedOut(bot);
+		}
+	}
+
+	public void botDisconnected(BotData bot) {
+		if (game != null) {
+			game.onBotDisconnected(bot);
+		}
+	}
+
+	/**
+	 * Disqualifies a bot that exceeded the rate limit.
+	 *
+	 * @param bot The bot.
+	 */
+	public void botFlooding(@NonNull BotData bot) {
+		if (game != null) {
+			game.handleBotFlooding(bot);
+		}
+	}
+
+	public void interruptGame() {
+		if (game != null) {
+			game.handleInterruptGame();
+		}
+	}
+
+	/**
+	 * @return The approximate number of bytes all games created so far occupy on the heap.
+	 */
+	public long estimateMemoryBytes() {
+		long bytes = 0;
+		for (Game createdGame : games.values()) {
+			bytes += createdGame.estimateMemoryBytes();
+		}
+		return bytes;
+	}
+
+	private Game gameFor(String module) {
+		Supplier<? extends Game> factory = module != null ? moduleFactories.get(module) : null;
+		if (factory == null) {
+			factory = defaultFactory;
+		}
+
+		if (factory == null) {
+			return null;
+		}
+
+		Game created = games.get(factory);
+		if (created == null) {
+			created = factory.get();
+			created.setMessageSender(messageSender);
+			created.setCallbackExecutor(callbackExecutor);
+			games.put(factory, created);
+		}
+
+		return created;
+	}
+}
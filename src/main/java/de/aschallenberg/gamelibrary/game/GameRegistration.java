@@ -0,0 +1,105 @@
+package de.aschallenberg.gamelibrary.game;
+
+import de.aschallenberg.gamelibrary.config.ConfigLoader;
+import de.aschallenberg.gamelibrary.websocket.MessageSender;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A game implementation registered in the {@link GameRegistry}, identified by its game implementation token.
+ * <p>
+ * Each module of the game can have its own factory, e.g. one per board size. Modules without a factory of their own
+ * use the default factory. The library opens one connection to the platform per registration.
+ * </p>
+ */
+public final class GameRegistration {
+	private final String token;
+	private final Map<String, Supplier<? extends Game>> moduleFactories = new LinkedHashMap<>();
+	private Supplier<? extends Game> defaultFactory;
+
+	@Getter
+	private WarmUpStrategy warmUpStrategy;
+
+	GameRegistration(String token) {
+		this.token = token;
+	}
+
+	/**
+	 * Registers the factory for a module.
+	 *
+	 * @param module  The name of the module as configured on the platform, see {@code GameData.getModule()}.
+	 * @param factory The factory creating games for this module.
+	 * @return This registration.
+	 */
+	public GameRegistration module(@NonNull String module, @NonNull Supplier<? extends Game> factory) {
+		moduleFactories.put(module, factory);
+		return this;
+	}
+
+	/**
+	 * Registers the factory for all modules without a factory of their own.
+	 *
+	 * @param factory The factory creating the games.
+	 * @return This registration.
+	 */
+	public GameRegistration defaultFactory(@NonNull Supplier<? extends Game> factory) {
+		this.defaultFactory = factory;
+		return this;
+	}
+
+	/**
+	 * Registers how the synthetic bots move in the warm-up matches. The warm-up is enabled with
+	 * {@code platform.warmup.matches}. Without a strategy, the warm-up matches end after the first move request.
+	 *
+	 * @param warmUpStrategy The strategy of the synthetic bots.
+	 * @return This registration.
+	 */
+	public GameRegistration warmUp(@NonNull WarmUpStrategy warmUpStrategy) {
+		this.warmUpStrategy = warmUpStrategy;
+		return this;
+	}
+
+	/**
+	 * @return The factory for all modules without a factory of their own or {@code null} if none was registered.
+	 */
+	Supplier<? extends Game> getDefaultFactory() {
+		return defaultFactory;
+	}
+
+	/**
+	 * @return The modules that have a factory of their own.
+	 */
+	public List<String> getModules() {
+		return List.copyOf(moduleFactories.keySet());
+	}
+
+	/**
+	 * @return The game implementation token. For the registration created by {@link GameRegistry#register()} it is
+	 * read from {@code platform.game.token}.
+	 */
+	public String getToken() {
+		return token != null ? token : ConfigLoader.get("platform.game.token");
+	}
+
+	/**
+	 * Creates the dispatcher for one connection. The lookup table is copied, so later changes to this registration
+	 * do not affect connections that are already open.
+	 *
+	 * @param messageSender    The sender of the connection, used by all games of the dispatcher.
+	 * @param callbackExecutor Runs the callbacks of {@code Game.compute} in the context of the connection's callbacks.
+	 * @return The dispatcher.
+	 */
+	public GameDispatcher createDispatcher(@NonNull MessageSender messageSender, @NonNull Executor callbackExecutor) {
+		if (moduleFactories.isEmpty() && defaultFactory == null) {
+			throw new IllegalStateException("No game factory registered for token " + getToken());
+		}
+
+		return new GameDispatcher(Map.copyOf(moduleFactories), defaultFactory, messageSender, callbackExecutor);
+	}
+}
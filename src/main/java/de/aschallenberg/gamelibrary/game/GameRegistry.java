@@ -1,20 +1,114 @@
 package de.aschallenberg.gamelibrary.game;
 
+import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the games hosted by this process.
+ * <p>
+ * For a single game, {@link #setGameFactory(Supplier)} or {@link #setGameClass(Class)} is enough. To host several
+ * games in one process, register each of them with its own token via {@link #register(String)}.
+ * </p>
+ */
 @UtilityClass
 public class GameRegistry {
-	private static Class<? extends Game> gameClass;
+	private static final Map<String, GameRegistration> REGISTRATIONS = new LinkedHashMap<>();
+	private static GameRegistration defaultRegistration;
 
-	public static void setGameClass(Class<? extends Game> gameClass) {
-		GameRegistry.gameClass = gameClass;
+	/**
+	 * Registers the game class. The no-args constructor is resolved once here, so later instantiations do not
+	 * repeat the reflective lookup.
+	 *
+	 * @param gameClass The class of your game. It must provide a no-args constructor.
+	 */
+	public static void setGameClass(@NonNull Class<? extends Game> gameClass) {
+		final Constructor<? extends Game> constructor;
+		try {
+			constructor = gameClass.getDeclaredConstructor();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException("Game class " + gameClass.getName() + " has no no-args constructor", e);
+		}
+
+		setGameFactory(() -> {
+			try {
+				return constructor.newInstance();
+			} catch (Exception e) {
+				throw new IllegalStateException("Failed to instantiate game class", e);
+			}
+		});
 	}
 
+	/**
+	 * Registers a factory for your game, e.g. {@code GameRegistry.setGameFactory(TicTacToe::new)}.
+	 * <p>
+	 * In contrast to {@link #setGameClass(Class)} no reflection is involved, so no reflection metadata for your game
+	 * class is needed when building a GraalVM native image.
+	 * </p>
+	 *
+	 * @param gameFactory The factory creating new instances of your game.
+	 */
+	public static void setGameFactory(@NonNull Supplier<? extends Game> gameFactory) {
+		register().defaultFactory(gameFactory);
+	}
+
+	/**
+	 * Returns the registration of the game whose token is configured in {@code platform.game.token}, e.g. to
+	 * register a factory per module.
+	 *
+	 * @return The registration.
+	 */
+	public static synchronized GameRegistration register() {
+		if (defaultRegistration == null) {
+			defaultRegistration = new GameRegistration(null);
+		}
+
+		return defaultRegistration;
+	}
+
+	/**
+	 * Returns the registration of the game with the given token. Use this to host several games in one process.
+	 *
+	 * @param token The game implementation token.
+	 * @return The registration.
+	 */
+	public static synchronized GameRegistration register(@NonNull String token) {
+		return REGISTRATIONS.computeIfAbsent(token, GameRegistration::new);
+	}
+
+	/**
+	 * Creates a new instance of the game registered with {@link #setGameClass(Class)} or
+	 * {@link #setGameFactory(Supplier)}.
+	 *
+	 * @return The new game.
+	 * @deprecated The library creates the games itself, one per factory and connection. Register a factory instead
+	 * of instantiating games yourself.
+	 */
+	@Deprecated
 	public static Game instantiateGame() {
-		try {
-			return gameClass.getDeclaredConstructor().newInstance();
-		} catch (Exception e) {
-			throw new IllegalStateException("Failed to instantiate game class", e);
+		Supplier<? extends Game> factory = register().getDefaultFactory();
+		if (factory == null) {
+			throw new IllegalStateException("Failed to instantiate game class: no game class registered");
+		}
+
+		return factory.get();
+	}
+
+	/**
+	 * @return All registrations, starting with the one of {@link #register()} if it exists.
+	 */
+	public static synchronized List<GameRegistration> getRegistrations() {
+		List<GameRegistration> registrations = new ArrayList<>();
+		if (defaultRegistration != null) {
+			registrations.add(defaultRegistration);
 		}
+		registrations.addAll(REGISTRATIONS.values());
+		return registrations;
 	}
 }
@@ -0,0 +1,22 @@
+package de.aschallenberg.gamelibrary.game;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.aschallenberg.communication.dto.BotData;
+
+/**
+ * Plays the synthetic bots of the warm-up matches that are run before the game registers with the platform.
+ *
+ * @see GameRegistration#warmUp(WarmUpStrategy)
+ */
+@FunctionalInterface
+public interface WarmUpStrategy {
+
+	/**
+	 * Chooses the move of a synthetic bot.
+	 *
+	 * @param bot         The bot that has to move.
+	 * @param moveRequest The value your game sent with {@code sendMove}, as the bot would receive it.
+	 * @return The move the bot sends back or {@code null} to end the match.
+	 */
+	Object nextMove(BotData bot, JsonNode moveRequest);
+}
@@ -0,0 +1,156 @@
+package de.aschallenberg.gamelibrary.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in microseconds with a fixed number of log-linear buckets.
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKET_COUNT} buckets, so a recorded value is reported with a
+ * relative error of at most 12.5%. Recording is a few arithmetic operations and one atomic increment, and the memory
+ * footprint is constant regardless of how many values are recorded.
+ * </p>
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration given in nanoseconds.
+	 *
+	 * @param nanos The duration in nanoseconds. Negative values are recorded as 0.
+	 */
+	public void recordNanos(long nanos) {
+		record(TimeUnit.NANOSECONDS.toMicros(Math.max(nanos, 0)));
+	}
+
+	/**
+	 * Records a duration given in microseconds.
+	 *
+	 * @param micros The duration in microseconds. Negative values are recorded as 0.
+	 */
+	public void record(long micros) {
+		long value = Math.max(micros, 0);
+
+		buckets.incrementAndGet(indexOf(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return The largest recorded value in microseconds.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @return The mean of all recorded values in microseconds or 0 if nothing was recorded.
+	 */
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * Returns the value at the given percentile.
+	 *
+	 * @param percentile The percentile between 0 and 100, e.g. 99 for the p99.
+	 * @return The upper bound of the bucket containing the percentile in microseconds or 0 if nothing was recorded.
+	 */
+	public long getPercentile(double percentile) {
+		long n = count.get();
+		if (n == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(i), getMax());
+			}
+		}
+
+		return getMax();
+	}
+
+	/**
+	 * Clears all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Adds all values recorded in the given histogram to this histogram.
+	 *
+	 * @param other The histogram to add.
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			long bucket = other.buckets.get(i);
+			if (bucket != 0) {
+				buckets.addAndGet(i, bucket);
+			}
+		}
+		count.addAndGet(other.count.get());
+		sum.addAndGet(other.sum.get());
+		max.accumulateAndGet(other.max.get(), Math::max);
+	}
+
+	/**
+	 * @return The approximate number of bytes this histogram occupies on the heap.
+	 */
+	public long estimateMemoryBytes() {
+		return BUCKET_COUNT * (long) Long.BYTES + 128;
+	}
+
+	@Override
+	public String toString() {
+		return "n=%d, mean=%.1f ms, p50=%.1f ms, p99=%.1f ms, max=%.1f ms".formatted(
+				getCount(),
+				getMean() / 1000.0,
+				getPercentile(50) / 1000.0,
+				getPercentile(99) / 1000.0,
+				getMax() / 1000.0
+		);
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+
+		int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+		return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+	}
+
+	static long upperBoundOf(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+
+		int shift = (index >> SUB_BUCKET_BITS) - 1;
+		long lowerBound = (long) (SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1))) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,124 @@
+package de.aschallenberg.gamelibrary.metrics;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide registry of counters, gauges and latency histograms.
+ * <p>
+ * The values can be read with {@link #snapshot()} or logged periodically with {@link #startReporter(Duration)}.
+ * </p>
+ */
+@Log4j2
+@UtilityClass
+public class Metrics {
+	private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+	private static final Map<String, Supplier<? extends Number>> GAUGES = new ConcurrentHashMap<>();
+	private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+	private static ScheduledExecutorService reporter;
+
+	/**
+	 * Increments the counter with the given name by one.
+	 *
+	 * @param name The name of the counter.
+	 */
+	public static void increment(@NonNull String name) {
+		counter(name).increment();
+	}
+
+	/**
+	 * Returns the counter with the given name. It is created if it does not exist yet.
+	 *
+	 * @param name The name of the counter.
+	 * @return The counter.
+	 */
+	public static LongAdder counter(@NonNull String name) {
+		return COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+	}
+
+	/**
+	 * Registers a gauge whose value is read every time a snapshot is taken. An existing gauge with the same name is
+	 * replaced.
+	 *
+	 * @param name  The name of the gauge.
+	 * @param value The supplier of the current value.
+	 */
+	public static void gauge(@NonNull String name, @NonNull Supplier<? extends Number> value) {
+		GAUGES.put(name, value);
+	}
+
+	/**
+	 * Removes the gauge with the given name.
+	 *
+	 * @param name The name of the gauge.
+	 */
+	public static void removeGauge(@NonNull String name) {
+		GAUGES.remove(name);
+	}
+
+	/**
+	 * Returns the histogram with the given name. It is created if it does not exist yet.
+	 *
+	 * @param name The name of the histogram.
+	 * @return The histogram.
+	 */
+	public static LatencyHistogram histogram(@NonNull String name) {
+		return HISTOGRAMS.computeIfAbsent(name, key -> new LatencyHistogram());
+	}
+
+	/**
+	 * Takes a snapshot of all metrics, sorted by name. Counters and gauges are mapped to their current value,
+	 * histograms to their summary.
+	 *
+	 * @return The snapshot.
+	 */
+	public static Map<String, Object> snapshot() {
+		Map<String, Object> snapshot = new TreeMap<>();
+		COUNTERS.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+		GAUGES.forEach((name, gauge) -> snapshot.put(name, gauge.get()));
+		HISTOGRAMS.forEach((name, histogram) -> snapshot.put(name, histogram.toString()));
+		return snapshot;
+	}
+
+	/**
+	 * Resets all counters and histograms, e.g. after the warm-up so that only real traffic is reported. Gauges are
+	 * kept.
+	 */
+	public static void reset() {
+		COUNTERS.values().forEach(LongAdder::reset);
+		HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+	}
+
+	/**
+	 * Starts logging a snapshot of all metrics in the given interval. Calling this method again has no effect.
+	 *
+	 * @param interval The interval between two reports.
+	 */
+	public static synchronized void startReporter(@NonNull Duration interval) {
+		if (reporter != null) {
+			return;
+		}
+
+		reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "metrics-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		reporter.scheduleAtFixedRate(
+				() -> log.info("Metrics: {}", snapshot()),
+				interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS
+		);
+	}
+}
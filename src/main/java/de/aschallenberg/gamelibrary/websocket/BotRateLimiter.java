@@ -0,0 +1,132 @@
+package de.aschallenberg.gamelibrary.websocket;
+
+import de.aschallenberg.communication.dto.BotData;
+import de.aschallenberg.gamelibrary.config.ConfigLoader;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per bot for the messages a bot sends to the game.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the theoretical arrival time of the next message (generic cell
+ * rate algorithm), so a check is one compare-and-set without any lock.
+ * </p>
+ * <p>
+ * Configuration:
+ * <ul>
+ *     <li>{@code platform.ratelimit.rate}: Messages per second and bot. Rate limiting is disabled if not set.</li>
+ *     <li>{@code platform.ratelimit.burst}: Messages a bot may send at once. Defaults to the rate.</li>
+ *     <li>{@code platform.ratelimit.policy}: {@code drop}, {@code delay} or {@code disqualify}. Defaults to
+ *     {@code drop}.</li>
+ *     <li>{@code platform.ratelimit.maxDelayMillis}: With {@code delay}, messages that would have to wait longer are
+ *     dropped. Defaults to 1000.</li>
+ * </ul>
+ * </p>
+ */
+final class BotRateLimiter {
+	static final String DROPPED_METRIC = "ratelimit.dropped";
+	static final String DELAYED_METRIC = "ratelimit.delayed";
+	static final String DISQUALIFIED_METRIC = "ratelimit.disqualified";
+
+	/**
+	 * What happens to a message of a bot that exceeded its rate.
+	 */
+	enum Policy {
+		DROP,
+		DELAY,
+		DISQUALIFY
+	}
+
+	@Getter
+	private final Policy policy;
+	private final long intervalNanos;
+	private final long burstNanos;
+	private final long maxDelayNanos;
+
+	private final Map<BotData, AtomicLong> buckets = new ConcurrentHashMap<>();
+	private final Set<BotData> disqualified = ConcurrentHashMap.newKeySet();
+
+	BotRateLimiter(double rate, int burst, Policy policy, long maxDelayMillis) {
+		if (rate <= 0 || burst <= 0) {
+			throw new IllegalArgumentException("Rate and burst must be positive");
+		}
+
+		this.policy = policy;
+		this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+		this.burstNanos = intervalNanos * burst;
+		this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+	}
+
+	/**
+	 * Creates the rate limiter from the configuration.
+	 *
+	 * @return The rate limiter or {@code null} if rate limiting is not configured.
+	 */
+	static BotRateLimiter fromConfig() {
+		if (!ConfigLoader.isSet("platform.ratelimit.rate")) {
+			return null;
+		}
+
+		double messagesPerSecond = ConfigLoader.getDouble("platform.ratelimit.rate", 0);
+
+		return new BotRateLimiter(
+				messagesPerSecond,
+				ConfigLoader.getInt("platform.ratelimit.burst", (int) Math.max(1, Math.ceil(messagesPerSecond))),
+				ConfigLoader.getEnum("platform.ratelimit.policy", Policy.class, Policy.DROP),
+				ConfigLoader.getLong("platform.ratelimit.maxDelayMillis", 1000)
+		);
+	}
+
+	/**
+	 * Takes a token from the bucket of the bot.
+	 * <p>
+	 * With the policy {@link Policy#DELAY}, a token is reserved in advance if the bot would have to wait at most the
+	 * maximum delay.
+	 * </p>
+	 *
+	 * @param bot The bot that sent a message.
+	 * @return 0 if the message may be handled now, the nanoseconds to wait before handling it (only with
+	 * {@link Policy#DELAY}), or -1 if the message must not be handled.
+	 */
+	long acquire(BotData bot) {
+		long now = System.nanoTime();
+		AtomicLong bucket = buckets.computeIfAbsent(bot, key -> new AtomicLong(now));
+
+		while (true) {
+			long arrival = bucket.get();
+			long nextArrival = Math.max(arrival, now) + intervalNanos;
+			long wait = nextArrival - now - burstNanos;
+
+			if (wait > 0 && (policy != Policy.DELAY || wait > maxDelayNanos)) {
+				return -1;
+			}
+
+			if (bucket.compareAndSet(arrival, nextArrival)) {
+				return Math.max(wait, 0);
+			}
+		}
+	}
+
+	/**
+	 * Marks the bot as disqualified.
+	 *
+	 * @param bot The bot.
+	 * @return {@code true} if the bot was not disqualified before.
+	 */
+	boolean disqualify(BotData bot) {
+		return disqualified.add(bot);
+	}
+
+	/**
+	 * Forgets all bots, e.g. when a new game starts.
+	 */
+	void reset() {
+		buckets.clear();
+		disqualified.clear();
+	}
+}
@@ -0,0 +1,124 @@
+package de.aschallenberg.gamelibrary.websocket;
+
+import de.aschallenberg.gamelibrary.config.ConfigLoader;
+import de.aschallenberg.gamelibrary.metrics.Metrics;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Packs the outbound messages of one connection into batch frames: a JSON array of messages in a single text frame.
+ * <p>
+ * A batch is sent when it reaches {@code platform.batching.maxBytes} (default: 16384), when the first message in it
+ * has waited {@code platform.batching.lingerMillis} (default: 5), or when {@link #flush()} is called, which the
+ * {@link WebSocketHandler} does at the end of every game callback. A batch with a single message is sent as that
+ * message alone. A message that does not fit into a batch on its own is sent directly after the current batch, so the
+ * buffer of the batches never grows.
+ * </p>
+ */
+final class MessageBatcher {
+	static final String FRAMES_METRIC = "batching.frames";
+	static final String MESSAGES_METRIC = "batching.messages";
+
+	private static final int DEFAULT_MAX_BYTES = 16 * 1024;
+	private static final long DEFAULT_LINGER_MILLIS = 5;
+
+	private final Consumer<ByteBuffer> send;
+	private final int maxBytes;
+	private final long lingerMillis;
+
+	private final byte[] batch;
+	private int size;
+	private int messages;
+
+	/**
+	 * Counts the batches, so a linger timer does not flush a later batch early.
+	 */
+	private long batchNumber;
+
+	MessageBatcher(Consumer<ByteBuffer> send) {
+		this(
+				send,
+				ConfigLoader.getInt("platform.batching.maxBytes", DEFAULT_MAX_BYTES),
+				ConfigLoader.getLong("platform.batching.lingerMillis", DEFAULT_LINGER_MILLIS)
+		);
+	}
+
+	MessageBatcher(Consumer<ByteBuffer> send, int maxBytes, long lingerMillis) {
+		this.send = send;
+		this.maxBytes = maxBytes;
+		this.lingerMillis = lingerMillis;
+		this.batch = new byte[maxBytes + 2];
+	}
+
+	/**
+	 * Adds an encoded message to the current batch. The buffer is copied, or sent right away if the message does not fit
+	 * into a batch.
+	 *
+	 * @param message The UTF-8 encoded JSON of the message.
+	 */
+	synchronized void add(ByteBuffer message) {
+		int length = message.remaining();
+		if (messages > 0 && size + 1 + length + 1 > maxBytes) {
+			flush();
+		}
+
+		if (length + 2 > maxBytes) {
+			Metrics.increment(FRAMES_METRIC);
+			Metrics.increment(MESSAGES_METRIC);
+			send.accept(message);
+			return;
+		}
+
+		batch[size++] = (byte) (messages == 0 ? '[' : ',');
+		message.get(batch, size, length);
+		size += length;
+		messages++;
+
+		if (size + 1 >= maxBytes) {
+			flush();
+		} else if (messages == 1) {
+			long scheduledBatch = batchNumber;
+			Scheduler.get().schedule(() -> flushIfStill(scheduledBatch), lingerMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Sends the current batch, if it contains any messages.
+	 */
+	synchronized void flush() {
+		if (messages == 0) {
+			return;
+		}
+
+		ByteBuffer frame;
+		if (messages == 1) {
+			frame = ByteBuffer.wrap(batch, 1, size - 1);
+		} else {
+			batch[size++] = ']';
+			frame = ByteBuffer.wrap(batch, 0, size);
+		}
+
+		Metrics.increment(FRAMES_METRIC);
+		Metrics.counter(MESSAGES_METRIC).add(messages);
+		size = 0;
+		messages = 0;
+		batchNumber++;
+
+		send.accept(frame);
+	}
+
+	/**
+	 * @return The number of bytes reserved for batches.
+	 */
+	synchronized int capacity() {
+		return batch.length;
+	}
+
+	private synchronized void flushIfStill(long scheduledBatch) {
+		if (batchNumber == scheduledBatch) {
+			flush();
+		}
+	}
+}
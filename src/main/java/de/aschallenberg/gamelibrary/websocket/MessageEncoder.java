@@ -0,0 +1,122 @@
+package de.aschallenberg.gamelibrary.websocket;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.aschallenberg.communication.dto.BotData;
+import de.aschallenberg.communication.messages.Message;
+import de.aschallenberg.communication.messages.MessageFactory;
+import de.aschallenberg.communication.messages.Payload;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Serializes outbound messages into a reusable, thread-local buffer instead of building a new {@code String} for
+ * every message.
+ * <p>
+ * Every message is created with {@link MessageFactory} and serialized completely, so the output is always identical
+ * to {@code mapper.writeValueAsBytes(MessageFactory.createMessage(...))}. Envelopes are not cached, as the envelope
+ * of {@link MessageFactory} may contain values that change over time.
+ * </p>
+ */
+final class MessageEncoder {
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private static final int INITIAL_CAPACITY = 4 * 1024;
+	private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+	private static final ThreadLocal<MessageEncoder> ENCODERS = ThreadLocal.withInitial(MessageEncoder::new);
+
+	private final Buffer out = new Buffer();
+	private JsonGenerator generator = createGenerator(out);
+
+	private MessageEncoder() {}
+
+	/**
+	 * @return The encoder of the current thread.
+	 */
+	static MessageEncoder get() {
+		return ENCODERS.get();
+	}
+
+	/**
+	 * Serializes a message with the given payload.
+	 * <p>
+	 * The returned buffer is owned by this encoder and is only valid until the next call on the same thread.
+	 * </p>
+	 *
+	 * @param payload    The payload of the message.
+	 * @param recipients The recipients of the message or {@code null} if the message is for the platform.
+	 * @return The UTF-8 encoded JSON of the message.
+	 */
+	ByteBuffer encode(Payload payload, List<BotData> recipients) {
+		return encode(recipients == null
+				? MessageFactory.createMessage(payload)
+				: MessageFactory.createMessage(payload, recipients));
+	}
+
+	/**
+	 * Serializes the given message. The returned buffer is only valid until the next call on the same thread.
+	 *
+	 * @param message The message.
+	 * @return The UTF-8 encoded JSON of the message.
+	 */
+	ByteBuffer encode(Message message) {
+		out.reset();
+		writeValue(message);
+		return out.toByteBuffer();
+	}
+
+	private void writeValue(Object value) {
+		try {
+			mapper.writeValue(generator, value);
+			generator.flush();
+		} catch (JsonProcessingException e) {
+			generator = createGenerator(out);
+			throw new IllegalArgumentException("Message could not be converted to JSON: " + e.getMessage(), e);
+		} catch (IOException e) {
+			generator = createGenerator(out);
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static JsonGenerator createGenerator(Buffer out) {
+		try {
+			JsonGenerator generator = mapper.getFactory().createGenerator(out);
+			generator.setRootValueSeparator(null);
+			return generator;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Byte array output stream whose backing array is exposed as a reusable {@link ByteBuffer}.
+	 */
+	private static final class Buffer extends ByteArrayOutputStream {
+		private ByteBuffer view;
+
+		private Buffer() {
+			super(INITIAL_CAPACITY);
+		}
+
+		@Override
+		public synchronized void reset() {
+			if (buf.length > MAX_RETAINED_CAPACITY) {
+				buf = new byte[INITIAL_CAPACITY];
+			}
+			super.reset();
+		}
+
+		private ByteBuffer toByteBuffer() {
+			if (view == null || view.array() != buf) {
+				view = ByteBuffer.wrap(buf);
+			}
+			return view.clear().limit(count);
+		}
+	}
+}
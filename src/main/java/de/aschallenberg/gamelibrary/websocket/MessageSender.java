@@ -1,51 +1,190 @@
 package de.aschallenberg.gamelibrary.websocket;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import de.aschallenberg.communication.dto.BotData;
-import de.aschallenberg.communication.messages.Message;
-import de.aschallenberg.communication.messages.MessageFactory;
 import de.aschallenberg.communication.messages.Payload;
+import de.aschallenberg.communication.messages.payloads.GameUpdatePayload;
+import de.aschallenberg.gamelibrary.config.ConfigLoader;
 import lombok.NonNull;
-import lombok.experimental.UtilityClass;
 import lombok.extern.log4j.Log4j2;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.BiConsumer;
 
+/**
+ * Sends messages over one connection to the platform. Every {@link WebSocketHandler} has its own sender.
+ * <p>
+ * Games send their messages with the send methods of {@code Game}. The static {@code sendMessage} methods of older
+ * versions are deprecated; they only work while a single game is connected.
+ * </p>
+ * <p>
+ * If {@code platform.updates.conflate} is {@code true}, game updates that cannot be sent right away because the socket
+ * is still busy are conflated: only the latest update per set of recipients is sent. Updates are encoded right away on
+ * the game's thread, so a held back update is the state the game passed and no game objects are read later.
+ * </p>
+ */
 @Log4j2
-@UtilityClass
 public class MessageSender {
 	public static final boolean DEBUG = false;
 
-	private static final ObjectMapper mapper = new ObjectMapper();
+	/**
+	 * The sender used by the deprecated static methods, {@code null} if there is not exactly one connection.
+	 */
+	private static volatile MessageSender defaultSender;
 
-	private static WebSocketHandler webSocketHandler;
+	private final WebSocketHandler webSocketHandler;
+	private final UpdateConflator updateConflator;
 
+	/**
+	 * Receives the messages instead of the socket during the warm-up, {@code null} otherwise.
+	 */
+	private final BiConsumer<Payload, List<BotData>> warmUpSink;
+
+	/**
+	 * Packs messages into batch frames once batching was negotiated, {@code null} otherwise.
+	 */
+	private volatile MessageBatcher messageBatcher;
+
+	MessageSender(WebSocketHandler webSocketHandler, BiConsumer<Payload, List<BotData>> warmUpSink) {
+		this.webSocketHandler = webSocketHandler;
+		this.warmUpSink = warmUpSink;
+		this.updateConflator = warmUpSink == null && ConfigLoader.getBoolean("platform.updates.conflate")
+				? new UpdateConflator(webSocketHandler, this::writeEncoded)
+				: null;
+	}
+
+	/**
+	 * Sends a message to the platform over the only game connection.
+	 *
+	 * @param payload The payload of the message.
+	 * @deprecated Use the send methods of {@code Game}, e.g. {@code sendLog}. This method fails if several games are
+	 * registered, as it cannot tell which connection to use.
+	 */
+	@Deprecated
 	public static void sendMessage(@NonNull Payload payload) {
-		sendMessage(MessageFactory.createMessage(payload));
+		getDefault().send(payload);
 	}
 
+	/**
+	 * Sends a message to bots over the only game connection.
+	 *
+	 * @param payload    The payload of the message.
+	 * @param recipients The recipients of the message.
+	 * @deprecated Use the send methods of {@code Game}, e.g. {@code sendGameUpdate}. This method fails if several
+	 * games are registered, as it cannot tell which connection to use.
+	 */
+	@Deprecated
 	public static void sendMessage(@NonNull Payload payload, List<BotData> recipients) {
-		sendMessage(MessageFactory.createMessage(payload, recipients));
+		getDefault().send(payload, recipients);
+	}
+
+	public void send(@NonNull Payload payload) {
+		write(payload, null);
+	}
+
+	public void send(@NonNull Payload payload, List<BotData> recipients) {
+		if (updateConflator != null && recipients != null && payload instanceof GameUpdatePayload<?>) {
+			updateConflator.offer(encode(payload, recipients), recipients);
+			return;
+		}
+
+		write(payload, recipients);
+	}
+
+	/**
+	 * Sets the sender used by the deprecated static methods.
+	 *
+	 * @param sender The sender of the only connection or {@code null} if there are several.
+	 */
+	static void setDefault(MessageSender sender) {
+		defaultSender = sender;
+	}
+
+	private static MessageSender getDefault() {
+		MessageSender sender = defaultSender;
+		if (sender == null) {
+			throw new IllegalStateException(
+					"MessageSender.sendMessage requires exactly one connected game. Use the send methods of Game instead"
+			);
+		}
+		return sender;
+	}
+
+	/**
+	 * Packs the following messages into batch frames.
+	 */
+	void enableBatching() {
+		messageBatcher = new MessageBatcher(webSocketHandler::sendText);
 	}
 
-	private static void sendMessage(Message message) {
-		String json;
-		try {
-			json = mapper.writeValueAsString(message);
-		} catch (JsonProcessingException e) {
-			throw new IllegalArgumentException("P" +
-					"Message could not be converted to JSON: " + e.getMessage(), e);
+	/**
+	 * Sends all messages that are held back, e.g. conflated game updates and the current batch.
+	 */
+	void flush() {
+		if (updateConflator != null) {
+			updateConflator.flush();
 		}
+		flushBatch();
+	}
 
-		webSocketHandler.send(json);
+	/**
+	 * Sends the current batch, e.g. at the end of a game callback.
+	 */
+	void flushBatch() {
+		MessageBatcher batcher = messageBatcher;
+		if (batcher != null) {
+			batcher.flush();
+		}
+	}
+
+	/**
+	 * @return The number of bytes this sender reserves for held back messages.
+	 */
+	long estimateMemoryBytes() {
+		MessageBatcher batcher = messageBatcher;
+		long bytes = batcher != null ? batcher.capacity() : 0;
+		return updateConflator != null ? bytes + updateConflator.pendingBytes() : bytes;
+	}
+
+	private void write(Payload payload, List<BotData> recipients) {
+		if (updateConflator != null) {
+			updateConflator.flush(); // Waiting updates were sent before this message
+		}
+
+		ByteBuffer json = encode(payload, recipients);
+
+		if (warmUpSink != null) {
+			webSocketHandler.markActivity();
+			warmUpSink.accept(payload, recipients);
+			return;
+		}
+
+		writeEncoded(json);
+	}
+
+	private static ByteBuffer encode(Payload payload, List<BotData> recipients) {
+		ByteBuffer json = MessageEncoder.get().encode(payload, recipients);
 
 		if (DEBUG) {
-			log.info("Sent: {}", message);
+			log.info("Sent: {}", StandardCharsets.UTF_8.decode(json.duplicate()));
 		}
+
+		return json;
 	}
 
-	static void setWebSocketHandler(WebSocketHandler webSocketHandler) {
-		MessageSender.webSocketHandler = webSocketHandler;
+	/**
+	 * Sends an encoded message, either in the current batch or as a frame of its own.
+	 */
+	private void writeEncoded(ByteBuffer json) {
+		webSocketHandler.markActivity();
+
+		MessageBatcher batcher = messageBatcher;
+		if (batcher != null) {
+			batcher.add(json);
+			return;
+		}
+
+		webSocketHandler.sendText(json);
 	}
 }
@@ -0,0 +1,22 @@
+package de.aschallenberg.gamelibrary.websocket;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Single daemon thread for the library's short housekeeping tasks, e.g. retrying to send conflated updates.
+ */
+@UtilityClass
+class Scheduler {
+	private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "game-library-scheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	static ScheduledExecutorService get() {
+		return EXECUTOR;
+	}
+}
@@ -0,0 +1,117 @@
+package de.aschallenberg.gamelibrary.websocket;
+
+import de.aschallenberg.communication.dto.BotData;
+import de.aschallenberg.gamelibrary.metrics.Metrics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps only the latest unsent game update per set of recipients of one connection.
+ * <p>
+ * As long as the socket has no buffered data, updates are sent right away. Otherwise, they wait here and an update
+ * for the same recipients replaces the waiting one and moves to the end of the queue, so no bot receives it before an
+ * update offered earlier to another set of recipients that includes the bot. Waiting updates are sent as soon as the
+ * socket is drained, or before any other message, so the order of messages is preserved.
+ * </p>
+ * <p>
+ * Updates are offered already encoded. A waiting update is a copy of its bytes, so sending it later from another
+ * thread does not read any objects of the game.
+ * </p>
+ */
+final class UpdateConflator {
+	static final String CONFLATED_METRIC = "updates.conflated";
+
+	private static final long DRAIN_CHECK_MICROS = 500;
+
+	private final WebSocketHandler webSocketHandler;
+	private final Consumer<ByteBuffer> send;
+	private final Map<Set<BotData>, byte[]> pending = new LinkedHashMap<>();
+	private long pendingBytes;
+	private boolean drainScheduled;
+
+	UpdateConflator(WebSocketHandler webSocketHandler, Consumer<ByteBuffer> send) {
+		this.webSocketHandler = webSocketHandler;
+		this.send = send;
+	}
+
+	/**
+	 * Sends the update or keeps a copy of it until the socket is drained.
+	 *
+	 * @param json       The UTF-8 encoded JSON of the game update message. It is not used after this method returns.
+	 * @param recipients The recipients of the update.
+	 */
+	synchronized void offer(ByteBuffer json, List<BotData> recipients) {
+		if (pending.isEmpty() && !webSocketHandler.hasBufferedData()) {
+			send.accept(json);
+			return;
+		}
+
+		byte[] copy = new byte[json.remaining()];
+		json.get(copy);
+
+		Set<BotData> key = Set.copyOf(recipients);
+		byte[] replaced = pending.remove(key);
+		pending.put(key, copy);
+		pendingBytes += copy.length;
+		if (replaced != null) {
+			pendingBytes -= replaced.length;
+			Metrics.increment(CONFLATED_METRIC);
+		}
+
+		scheduleDrain();
+	}
+
+	/**
+	 * Sends all waiting updates.
+	 */
+	synchronized void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		List<byte[]> updates = new ArrayList<>(pending.values());
+		pending.clear();
+		pendingBytes = 0;
+		updates.forEach(update -> send.accept(ByteBuffer.wrap(update)));
+	}
+
+	/**
+	 * @return The number of bytes of the waiting updates.
+	 */
+	synchronized long pendingBytes() {
+		return pendingBytes;
+	}
+
+	private void scheduleDrain() {
+		if (drainScheduled) {
+			return;
+		}
+
+		drainScheduled = true;
+		Scheduler.get().schedule(this::drain, DRAIN_CHECK_MICROS, TimeUnit.MICROSECONDS);
+	}
+
+	private synchronized void drain() {
+		drainScheduled = false;
+
+		if (!webSocketHandler.isOpen()) {
+			pending.clear();
+			pendingBytes = 0;
+			return;
+		}
+
+		if (webSocketHandler.hasBufferedData()) {
+			scheduleDrain();
+			return;
+		}
+
+		flush();
+	}
+}
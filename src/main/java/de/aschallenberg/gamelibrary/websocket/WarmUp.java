@@ -0,0 +1,172 @@
+package de.aschallenberg.gamelibrary.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.aschallenberg.communication.dto.BotData;
+import de.aschallenberg.communication.dto.GameData;
+import de.aschallenberg.communication.messages.MessageFactory;
+import de.aschallenberg.communication.messages.Payload;
+import de.aschallenberg.communication.messages.payloads.GameFinishedPayload;
+import de.aschallenberg.communication.messages.payloads.GameInterruptPayload;
+import de.aschallenberg.communication.messages.payloads.GameStartPayload;
+import de.aschallenberg.communication.messages.payloads.MovePayload;
+import de.aschallenberg.gamelibrary.config.ConfigLoader;
+import de.aschallenberg.gamelibrary.game.GameRegistration;
+import de.aschallenberg.gamelibrary.game.WarmUpStrategy;
+import de.aschallenberg.gamelibrary.metrics.Metrics;
+import lombok.extern.log4j.Log4j2;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Plays synthetic matches before a game registers with the platform, so that the message handling and the game are
+ * already JIT-compiled when the first real bots arrive.
+ * <p>
+ * The matches run through the real path: JSON messages are parsed by a {@link WebSocketHandler}, dispatched to a game
+ * created from the {@link GameRegistration} and the game's messages are encoded, but then passed to an in-memory sink
+ * instead of a socket. The synthetic bots answer move requests with the registration's {@link WarmUpStrategy}.
+ * </p>
+ * <p>
+ * Configuration:
+ * <ul>
+ *     <li>{@code platform.warmup.matches}: Number of matches per registration. The warm-up is disabled if not set.</li>
+ *     <li>{@code platform.warmup.bots}: Number of synthetic bots per match. Defaults to 2.</li>
+ * </ul>
+ * </p>
+ */
+@Log4j2
+final class WarmUp {
+	private static final ObjectMapper mapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private static final URI NOT_CONNECTED = URI.create("ws://localhost");
+	private static final long MESSAGE_TIMEOUT_MILLIS = 1000;
+	private static final int MAX_MESSAGES_PER_MATCH = 10_000;
+
+	private final GameRegistration registration;
+	private final int botCount;
+	private final BlockingQueue<String> inbound = new LinkedBlockingQueue<>();
+	private final WebSocketHandler handler;
+
+	private volatile boolean matchOver;
+
+	private WarmUp(GameRegistration registration, int botCount) {
+		this.registration = registration;
+		this.botCount = botCount;
+		this.handler = new WebSocketHandler(NOT_CONNECTED, registration, this::onOutbound);
+	}
+
+	/**
+	 * Runs the configured number of warm-up matches for the registration. Does nothing if the warm-up is not
+	 * configured.
+	 *
+	 * @param registration The registration of the game to warm up.
+	 */
+	static void run(GameRegistration registration) {
+		int matches = ConfigLoader.getInt("platform.warmup.matches", 0);
+		if (matches <= 0) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		WarmUp warmUp = new WarmUp(registration, ConfigLoader.getInt("platform.warmup.bots", 2));
+
+		List<String> modules = registration.getModules();
+		for (int i = 0; i < matches; i++) {
+			warmUp.playMatch(modules.isEmpty() ? null : modules.get(i % modules.size()), i);
+		}
+
+		Metrics.reset();
+		log.info("Warmed up with {} matches in {} ms", matches, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	private void playMatch(String module, int match) {
+		matchOver = false;
+		inbound.clear();
+
+		try {
+			GameData gameData = createGameData(module, match);
+			handler.onMessage(startMessage(gameData));
+
+			for (int i = 0; i < MAX_MESSAGES_PER_MATCH && !matchOver; i++) {
+				String message = inbound.poll(MESSAGE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				if (message == null) {
+					break;
+				}
+				handler.onMessage(message);
+			}
+
+			if (!matchOver) {
+				handler.onMessage(toJson(mapper.valueToTree(MessageFactory.createMessage(new GameInterruptPayload()))));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			log.warn("Warm-up match failed: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Receives the messages of the game. Move requests are answered by the synthetic bots.
+	 */
+	private void onOutbound(Payload payload, List<BotData> recipients) {
+		switch (payload) {
+			case final GameFinishedPayload finished -> matchOver = true;
+			case final GameInterruptPayload interrupt -> matchOver = true;
+			case final MovePayload<?> move when recipients != null -> recipients.forEach(bot -> answer(bot, move.getValue()));
+			default -> {
+				// Logs and game updates are not needed by the synthetic bots
+			}
+		}
+	}
+
+	private void answer(BotData bot, Object moveRequest) {
+		WarmUpStrategy strategy = registration.getWarmUpStrategy();
+		Object move = strategy != null ? strategy.nextMove(bot, mapper.valueToTree(moveRequest)) : null;
+
+		if (move == null) {
+			matchOver = true;
+			return;
+		}
+
+		ObjectNode message = mapper.valueToTree(MessageFactory.createMessage(new MovePayload<>(move)));
+		ObjectNode meta = message.get("meta") instanceof ObjectNode existing ? existing : message.putObject("meta");
+		meta.set("sender", mapper.valueToTree(bot));
+		inbound.add(toJson(message));
+	}
+
+	private GameData createGameData(String module, int match) {
+		List<Map<String, String>> bots = IntStream.rangeClosed(1, botCount)
+				.mapToObj(i -> Map.of("name", "Warm-up bot " + i, "ownerName", "warm-up"))
+				.toList();
+
+		List<Map<String, String>> order = new ArrayList<>(bots);
+		Collections.rotate(order, match); // Let every bot begin once in a while
+
+		Map<String, Object> gameData = module == null ? Map.of("bots", order) : Map.of("module", module, "bots", order);
+		return mapper.convertValue(gameData, GameData.class);
+	}
+
+	private String startMessage(GameData gameData) {
+		return toJson(mapper.valueToTree(MessageFactory.createMessage(new GameStartPayload(gameData))));
+	}
+
+	private static String toJson(JsonNode message) {
+		try {
+			return mapper.writeValueAsString(message);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Message could not be converted to JSON: " + e.getMessage(), e);
+		}
+	}
+}
@@ -8,54 +8,182 @@ import de.aschallenberg.communication.messages.Meta;
 import de.aschallenberg.communication.messages.Payload;
 import de.aschallenberg.communication.messages.payloads.*;
 import de.aschallenberg.gamelibrary.config.ConfigLoader;
-import de.aschallenberg.gamelibrary.game.Game;
-import de.aschallenberg.gamelibrary.game.GameRegistry;
+import de.aschallenberg.gamelibrary.game.GameDispatcher;
+import de.aschallenberg.gamelibrary.game.GameRegistration;
+import de.aschallenberg.gamelibrary.metrics.Metrics;
 import lombok.NonNull;
 import lombok.extern.log4j.Log4j2;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.TextFrame;
 import org.java_websocket.handshake.ServerHandshake;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 @Log4j2
 public final class WebSocketHandler extends WebSocketClient {
+	/**
+	 * Handshake header with which the game offers batch frames and the platform accepts them.
+	 */
+	public static final String BATCHING_HEADER = "X-Message-Batching";
+
 	private static final ObjectMapper mapper = new ObjectMapper();
 	private static final Marker PLATFORM_MARKER = MarkerManager.getMarker("Platform");
+	private static final long DRAIN_POLL_MILLIS = 100;
+	private static final long MIN_REAPER_INTERVAL_MILLIS = 1000;
+	private static final String REAPED_METRIC = "sessions.reaped";
+	private static final long CALLBACK_THREAD_KEEP_ALIVE_SECONDS = 30;
+
+	private static final AtomicInteger SESSION_IDS = new AtomicInteger();
+
+	private final GameRegistration registration;
+	private final GameDispatcher dispatcher;
+	private final MessageSender messageSender;
+	private final BotRateLimiter rateLimiter = BotRateLimiter.fromConfig();
+
+	/**
+	 * Messages that wait for the rate limit, per bot in the order they arrived. Guarded by itself.
+	 */
+	private final Map<BotData, Deque<DelayedMessage>> delayed = new HashMap<>();
+
+	/**
+	 * Incremented on every game start, so releases of messages delayed in a previous game run are dropped.
+	 */
+	private volatile int generation;
+
+	/**
+	 * Identifies this connection in metrics and thread names without revealing its token.
+	 */
+	private final String sessionId = "session-" + SESSION_IDS.incrementAndGet();
+	private volatile long lastActivityNanos = System.nanoTime();
+	private ScheduledFuture<?> reaper;
+
+	/**
+	 * Delivers the callbacks of {@code Game.compute} one after another. Its thread waits for the lock of this handler,
+	 * so neither the fork-join workers nor the thread calling {@code compute} do. It ends after being idle.
+	 */
+	private final ThreadPoolExecutor callbackDelivery = new ThreadPoolExecutor(
+			1, 1, CALLBACK_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+			runnable -> {
+				Thread thread = new Thread(runnable, "callbacks-" + sessionId);
+				thread.setDaemon(true);
+				return thread;
+			}
+	);
 
-	private final Game game = GameRegistry.instantiateGame();
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private final CompletableFuture<Void> drained = new CompletableFuture<>();
 
-	public WebSocketHandler(URI serverUri) {
-		super(serverUri);
+	public WebSocketHandler(URI serverUri, GameRegistration registration) {
+		this(serverUri, registration, null);
+	}
+
+	/**
+	 * Creates a handler whose outbound messages are passed to the given sink instead of the socket. Such a handler is
+	 * never connected; messages are fed into {@link #onMessage(String)} directly. Used for the warm-up.
+	 */
+	WebSocketHandler(URI serverUri, GameRegistration registration, BiConsumer<Payload, List<BotData>> warmUpSink) {
+		super(serverUri, batchingHeaders());
+		this.registration = registration;
+		this.messageSender = new MessageSender(this, warmUpSink);
+		this.dispatcher = registration.createDispatcher(messageSender, this::deliverCallback);
+		this.callbackDelivery.allowCoreThreadTimeOut(true);
 	}
 
 	@Override
 	public void onOpen(ServerHandshake handshakeData) {
 		log.info("Connected to {}", getURI());
+		markActivity();
+		startReaper();
+		Metrics.gauge(sessionId + ".memoryBytes", this::estimateMemoryBytes);
+
+		// Only if the platform echoed an offer of this game, so a platform that always sends the header is ignored
+		if (isBatchingOffered() && handshakeData.hasFieldValue(BATCHING_HEADER)) {
+			log.info("Platform accepted batch frames");
+			messageSender.enableBatching();
+		}
 
-		String tokenAsString = ConfigLoader.get("platform.game.token");
-		UUID token = UUID.fromString(tokenAsString);
+		UUID token = UUID.fromString(registration.getToken());
 
-		MessageSender.sendMessage(new RegisterRequestPayload(token));
+		messageSender.send(new RegisterRequestPayload(token));
+		messageSender.flushBatch();
 	}
 
+	/**
+	 * Parses the message and checks the rate limit of its sender without holding the lock, so a flooding bot cannot
+	 * block the game. Only admitted messages are dispatched to the game.
+	 * <p>
+	 * A frame may also contain a batch, i.e. a JSON array of messages. Its messages are dispatched in order.
+	 * </p>
+	 */
 	@Override
-	public synchronized void onMessage(String messageString) {
-		final Message message;
+	public void onMessage(String messageString) {
+		final List<Message> messages;
 		try {
-			message = mapper.readValue(messageString, Message.class);
+			messages = isBatch(messageString)
+					? List.of(mapper.readValue(messageString, Message[].class))
+					: List.of(mapper.readValue(messageString, Message.class));
 		} catch (final JsonProcessingException e) {
 			log.warn(PLATFORM_MARKER, "Could not parse message: {}", e.getMessage());
-			error("Invalid JSON format: " + e.getMessage());
+			runInCallbackContext(() -> error("Invalid JSON format: " + e.getMessage()));
 			return;
 		}
 
 		if (MessageSender.DEBUG) {
-			log.info("Received: {}", message);
+			log.info("Received: {}", messages);
+		}
+
+		markActivity();
+
+		List<Runnable> delayedReleases = new ArrayList<>();
+		List<Message> admitted = messages.stream().filter(message -> admit(message, delayedReleases)).toList();
+		if (!admitted.isEmpty()) {
+			runInCallbackContext(() -> admitted.forEach(this::dispatch));
 		}
 
+		// Scheduled only now, so a delayed message cannot overtake an earlier message of the same frame
+		delayedReleases.forEach(Runnable::run);
+	}
+
+	private static boolean isBatch(String messageString) {
+		for (int i = 0; i < messageString.length(); i++) {
+			char c = messageString.charAt(i);
+			if (!Character.isWhitespace(c)) {
+				return c == '[';
+			}
+		}
+		return false;
+	}
+
+	private static Map<String, String> batchingHeaders() {
+		return isBatchingOffered() ? Map.of(BATCHING_HEADER, "1") : Map.of();
+	}
+
+	private static boolean isBatchingOffered() {
+		return ConfigLoader.getBoolean("platform.batching");
+	}
+
+	private void dispatch(@NonNull final Message message) {
 		switch (message.getPayload()) {
 			case final ErrorPayload payload -> handleError(message, payload);
 			case final BotClientDisconnectPayload payload -> handleBotClientDisconnected(message, payload);
@@ -80,9 +208,169 @@ public final class WebSocketHandler extends WebSocketClient {
 		}
 	}
 
+	/**
+	 * @return The sender of this connection.
+	 */
+	MessageSender getMessageSender() {
+		return messageSender;
+	}
+
+	/**
+	 * Sends already UTF-8 encoded JSON as a text frame. The frame is copied before this method returns, so the buffer
+	 * may be reused afterward.
+	 *
+	 * @param utf8 The UTF-8 encoded text.
+	 */
+	void sendText(ByteBuffer utf8) {
+		TextFrame frame = new TextFrame();
+		frame.setPayload(utf8);
+		sendFrame(frame);
+	}
+
+	/**
+	 * Shuts this connection down gracefully and blocks until it is closed.
+	 * <p>
+	 * No new games are accepted anymore. A running game may finish until the timeout has passed. After that it is
+	 * interrupted. Finally, all outbound messages are flushed and the connection is closed, which deregisters the game
+	 * from the platform. If the platform does not confirm the close before the timeout has passed, the connection is
+	 * aborted. Calling this method again waits for the first call to complete.
+	 * </p>
+	 *
+	 * @param timeout The time the running game may take to finish.
+	 */
+	public void drain(@NonNull Duration timeout) {
+		if (!draining.compareAndSet(false, true)) {
+			drained.join();
+			return;
+		}
+
+		try {
+			log.info("Draining connection to {}", getURI());
+			long deadline = System.nanoTime() + timeout.toNanos();
+
+			while (isOpen() && isGameRunning() && System.nanoTime() < deadline) {
+				Thread.sleep(DRAIN_POLL_MILLIS);
+			}
+
+			runInCallbackContext(() -> {
+				if (isOpen() && dispatcher.isGameRunning()) {
+					log.warn("Game did not finish within {}, interrupting it", timeout);
+					messageSender.send(new GameInterruptPayload());
+					dispatcher.interruptGame();
+				}
+			});
+
+			if (isOpen()) {
+				messageSender.flush();
+			}
+
+			while (isOpen() && hasBufferedData() && System.nanoTime() < deadline) {
+				Thread.sleep(DRAIN_POLL_MILLIS);
+			}
+
+			if (isOpen() || isClosing()) {
+				closeWithin(deadline);
+			}
+			log.info("Drained connection to {}", getURI());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+		} finally {
+			drained.complete(null);
+		}
+	}
+
+	/**
+	 * Starts the close handshake and waits for the platform to confirm it until the deadline, but at least one poll
+	 * interval, so the handshake has a chance even if the game used up the timeout. Aborts the connection if it is
+	 * still not closed then.
+	 */
+	private void closeWithin(long deadline) throws InterruptedException {
+		if (isOpen()) {
+			close();
+		}
+
+		long closeDeadline = Math.max(deadline, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_POLL_MILLIS));
+		while (!isClosed() && System.nanoTime() < closeDeadline) {
+			Thread.sleep(DRAIN_POLL_MILLIS);
+		}
+
+		if (!isClosed()) {
+			log.warn("Platform did not confirm closing the connection to {}, aborting it", getURI());
+			closeConnection(CloseFrame.ABNORMAL_CLOSE, "Close handshake timed out");
+		}
+	}
+
+	private synchronized boolean isGameRunning() {
+		return dispatcher.isGameRunning();
+	}
+
 	@Override
 	public void onClose(int code, String reason, boolean remote) {
 		log.warn("Connection closed ({}): {}", code, reason);
+
+		if (reaper != null) {
+			reaper.cancel(false);
+		}
+		Metrics.removeGauge(sessionId + ".memoryBytes");
+	}
+
+	/**
+	 * Records that a message was received or sent on this connection.
+	 */
+	void markActivity() {
+		lastActivityNanos = System.nanoTime();
+	}
+
+	/**
+	 * Starts checking for an idle game if {@code platform.session.idleTimeoutSeconds} is configured.
+	 */
+	private void startReaper() {
+		Duration timeout = ConfigLoader.getDuration("platform.session.idleTimeoutSeconds", ChronoUnit.SECONDS, null);
+		if (timeout == null || reaper != null) {
+			return;
+		}
+
+		long interval = Math.max(MIN_REAPER_INTERVAL_MILLIS, timeout.toMillis() / 4);
+		reaper = Scheduler.get().scheduleAtFixedRate(
+				() -> reapIfIdle(timeout), interval, interval, TimeUnit.MILLISECONDS
+		);
+	}
+
+	/**
+	 * Interrupts the running game if no message was received or sent for longer than the timeout, e.g. because the
+	 * finish or interrupt message of the platform was lost.
+	 * <p>
+	 * Runs on the scheduler thread shared by all connections, so it only hands the interrupt over to the callback
+	 * delivery of this connection. It never throws, as that would cancel the periodic check.
+	 * </p>
+	 */
+	private void reapIfIdle(Duration timeout) {
+		try {
+			if (System.nanoTime() - lastActivityNanos >= timeout.toNanos()) {
+				deliverCallback(() -> interruptIfIdle(timeout));
+			}
+		} catch (RuntimeException e) {
+			log.error("Could not check {} for being idle", sessionId, e);
+		}
+	}
+
+	private void interruptIfIdle(Duration timeout) {
+		if (!dispatcher.isGameRunning() || System.nanoTime() - lastActivityNanos < timeout.toNanos()) {
+			return;
+		}
+
+		log.warn("Interrupting game of {} after being idle for more than {}", sessionId, timeout);
+		Metrics.increment(REAPED_METRIC);
+		messageSender.send(new GameInterruptPayload());
+		dispatcher.interruptGame();
+	}
+
+	/**
+	 * @return The approximate number of bytes the games and buffers of this connection occupy on the heap.
+	 */
+	private synchronized long estimateMemoryBytes() {
+		return messageSender.estimateMemoryBytes() + dispatcher.estimateMemoryBytes();
 	}
 
 	@Override
@@ -90,19 +378,125 @@ public final class WebSocketHandler extends WebSocketClient {
 		log.error(ex.getMessage());
 	}
 
+	/**
+	 * Applies the rate limit to messages that bots send to the game. Moves are not limited, as the game only accepts
+	 * them from the bot whose turn it is.
+	 * <p>
+	 * With the policy {@code delay}, a delayed message is queued per bot. Later messages of the same bot, including
+	 * moves, queue up behind it, so the messages of a bot are never reordered.
+	 * </p>
+	 *
+	 * @param delayedReleases Receives the tasks that schedule the release of delayed messages.
+	 * @return {@code true} if the message is to be dispatched now.
+	 */
+	private boolean admit(@NonNull final Message message, @NonNull final List<Runnable> delayedReleases) {
+		if (rateLimiter == null || message.getMeta() == null) {
+			return true;
+		}
+
+		BotData sender = message.getMeta().getSender();
+		if (sender == null) {
+			return true;
+		}
+
+		long wait = message.getPayload() instanceof MovePayload<?> ? 0 : rateLimiter.acquire(sender);
+		if (wait == 0) {
+			// Only the policy delay queues messages, so the others need not look for a queue
+			return rateLimiter.getPolicy() != BotRateLimiter.Policy.DELAY || !queueBehindDelayed(sender, message, false);
+		}
+
+		if (wait > 0) {
+			Metrics.increment(BotRateLimiter.DELAYED_METRIC);
+			queueBehindDelayed(sender, message, true);
+			int delayedInGeneration = generation;
+			// The scheduler thread is shared by all connections, so it only hands the release over
+			delayedReleases.add(() -> Scheduler.get().schedule(
+					() -> deliverCallback(() -> releaseDelayed(sender, delayedInGeneration)),
+					wait,
+					TimeUnit.NANOSECONDS
+			));
+		} else if (rateLimiter.getPolicy() == BotRateLimiter.Policy.DISQUALIFY && rateLimiter.disqualify(sender)) {
+			log.warn("Disqualifying {} for exceeding the rate limit", sender);
+			Metrics.increment(BotRateLimiter.DISQUALIFIED_METRIC);
+			runInCallbackContext(() -> dispatcher.botFlooding(sender));
+		} else {
+			Metrics.increment(BotRateLimiter.DROPPED_METRIC);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Queues the message behind the delayed messages of its sender.
+	 *
+	 * @param timed Whether the message has a release of its own. Otherwise, it is only queued if the sender has
+	 *              delayed messages, and released together with the one before it.
+	 * @return {@code true} if the message was queued.
+	 */
+	private boolean queueBehindDelayed(BotData sender, Message message, boolean timed) {
+		synchronized (delayed) {
+			Deque<DelayedMessage> queue = delayed.get(sender);
+			if (queue == null) {
+				if (!timed) {
+					return false;
+				}
+
+				queue = new ArrayDeque<>();
+				delayed.put(sender, queue);
+			}
+
+			queue.add(new DelayedMessage(message, timed));
+			return true;
+		}
+	}
+
+	/**
+	 * Dispatches the oldest delayed message of the bot together with the untimed messages queued behind it. Does
+	 * nothing if a new game run has started since the message was delayed, as its queue was discarded then.
+	 */
+	private void releaseDelayed(BotData sender, int delayedInGeneration) {
+		List<Message> released = new ArrayList<>();
+
+		synchronized (delayed) {
+			Deque<DelayedMessage> queue = delayed.get(sender);
+			if (delayedInGeneration != generation || queue == null) {
+				Metrics.increment(BotRateLimiter.DROPPED_METRIC);
+				return;
+			}
+
+			released.add(queue.poll().message());
+			while (!queue.isEmpty() && !queue.peek().timed()) {
+				released.add(queue.poll().message());
+			}
+
+			if (queue.isEmpty()) {
+				delayed.remove(sender);
+			}
+		}
+
+		released.forEach(this::dispatch);
+	}
+
 	private void handleError(
 			@NonNull final Message message,
 			@NonNull final ErrorPayload payload
 	) {
 		log.error(PLATFORM_MARKER, payload.getErrorMessage());
-		System.exit(2);
+
+		// Drain on a separate thread, since the running game can only finish while this thread receives messages
+		Thread.ofPlatform()
+				.name("drain-" + sessionId)
+				.start(() -> {
+					drain(WebSocketInitiator.getDrainTimeout());
+					WebSocketInitiator.connectionFailed();
+				});
 	}
 
 	private void handleBotClientDisconnected(
 			@NonNull final Message message,
 			@NonNull final BotClientDisconnectPayload payload
 	) {
-		game.onBotDisconnected(payload.getDisconnectedBot());
+		dispatcher.botDisconnected(payload.getDisconnectedBot());
 	}
 
 	private void handleRegisterResponse(
@@ -110,20 +504,45 @@ public final class WebSocketHandler extends WebSocketClient {
 			@NonNull final RegisterResponsePayload payload
 	) {
 		log.info(PLATFORM_MARKER, "Successfully registered");
+
+		if (ConfigLoader.getBoolean("platform.training")) {
+			log.info("Training run finished, closing connection");
+			close();
+		}
 	}
 
 	private void handleGameStart(
 			@NonNull final Message message,
 			@NonNull final GameStartPayload payload
 	) {
-		game.onStartGame(payload.getGameData());
+		if (draining.get()) {
+			log.info("Refusing game start while draining");
+			messageSender.send(new GameInterruptPayload());
+			return;
+		}
+
+		if (rateLimiter != null) {
+			rateLimiter.reset();
+
+			synchronized (delayed) {
+				generation++;
+				delayed.clear(); // Messages of the previous game run must not reach the new one
+			}
+		}
+
+		if (!dispatcher.startGame(payload.getGameData())) {
+			String module = payload.getGameData().getModule();
+			log.error("No game registered for module {}", module);
+			messageSender.send(new ErrorPayload("Unknown module: " + module));
+			messageSender.send(new GameInterruptPayload());
+		}
 	}
 
 	private void handleInterrupt(
 			@NonNull final Message message,
 			@NonNull final Payload payload
 	) {
-		game.onInterruptGame();
+		dispatcher.interruptGame();
 	}
 
 	private void handleGameUpdate(
@@ -132,7 +551,7 @@ public final class WebSocketHandler extends WebSocketClient {
 	) {
 		BotData sender = getSender(message);
 		if (sender != null) {
-			game.onGameUpdateReceived(sender, payload.getValue());
+			dispatcher.gameUpdateReceived(sender, payload.getValue());
 		}
 	}
 
@@ -142,7 +561,7 @@ public final class WebSocketHandler extends WebSocketClient {
 	) {
 		BotData sender = getSender(message);
 		if (sender != null) {
-			game.onMoveReceived(sender, payload.getValue());
+			dispatcher.moveReceived(sender, payload.getValue());
 		}
 	}
 
@@ -150,13 +569,13 @@ public final class WebSocketHandler extends WebSocketClient {
 			@NonNull final Message message,
 			@NonNull final TimeoutPayload payload
 	) {
-		game.onBotTimedOut(payload.getTimedOutBot());
+		dispatcher.botTimedOut(payload.getTimedOutBot());
 	}
 
 	private void handleUnknownMessage(@NonNull final Message message) {
 		BotData sender = getSender(message);
 		if (sender != null) {
-			game.onOtherMessageReceived(sender, message.getPayload());
+			dispatcher.otherMessageReceived(sender, message.getPayload());
 		}
 	}
 
@@ -176,10 +595,38 @@ public final class WebSocketHandler extends WebSocketClient {
 	}
 
 	private void error(String errorMessage) {
-		MessageSender.sendMessage(new ErrorPayload(errorMessage));
-		MessageSender.sendMessage(new GameInterruptPayload());
-		game.onInterruptGame();
+		messageSender.send(new ErrorPayload(errorMessage));
+		messageSender.send(new GameInterruptPayload());
+		dispatcher.interruptGame();
+	}
+
+	/**
+	 * Runs the task under the lock of this handler, so the game is never called concurrently. Everything the game
+	 * sent during the task is flushed afterward.
+	 */
+	private synchronized void runInCallbackContext(Runnable task) {
+		try {
+			task.run();
+		} finally {
+			messageSender.flushBatch(); // End of the callback, send everything the game sent in one frame
+		}
+	}
+
+	/**
+	 * Queues the callback of a computation. It runs in the callback context once the current callback has finished.
+	 */
+	private void deliverCallback(Runnable callback) {
+		callbackDelivery.execute(() -> runInCallbackContext(callback));
 	}
 
 	private void ignore() {}
+
+	/**
+	 * A message of a bot that waits for the rate limit.
+	 *
+	 * @param message The message.
+	 * @param timed   Whether the message was delayed itself and has a release of its own, or only waits behind such
+	 *                a message.
+	 */
+	private record DelayedMessage(Message message, boolean timed) {}
 }
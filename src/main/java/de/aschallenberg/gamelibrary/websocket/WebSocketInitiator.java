@@ -1,10 +1,17 @@
 package de.aschallenberg.gamelibrary.websocket;
 
 import de.aschallenberg.gamelibrary.config.ConfigLoader;
+import de.aschallenberg.gamelibrary.game.GameRegistration;
+import de.aschallenberg.gamelibrary.game.GameRegistry;
+import de.aschallenberg.gamelibrary.metrics.Metrics;
 import lombok.experimental.UtilityClass;
 import lombok.extern.log4j.Log4j2;
 
 import java.net.URI;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Log4j2
 @UtilityClass
@@ -19,31 +26,107 @@ public class WebSocketInitiator {
 	 */
 	private static final String WS_ENDPOINT = "/ws/game";
 
+	private static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * Exit status after a platform error closed the last connection.
+	 */
+	private static final int FAILURE_EXIT_STATUS = 2;
+
+	private static final List<WebSocketHandler> HANDLERS = new CopyOnWriteArrayList<>();
+
 	/**
 	 * Initializes the WebSocket connection.
 	 * <p>
 	 * This method retrieves the WebSocket host and port from the configuration,
-	 * creates a WebSocketHandler client, and attempts to establish a connection
-	 * synchronously. If the connection attempt is interrupted, it logs a warning
+	 * creates a WebSocketHandler client for every game in the {@link GameRegistry}, and attempts to establish
+	 * the connections synchronously. If the connection attempt is interrupted, it logs a warning
 	 * message and re-interrupts the current thread.
+	 * If {@code platform.metrics.interval} is configured, the metrics are logged every that many seconds.
+	 * If {@code platform.warmup.matches} is configured, every game first plays that many synthetic matches, so it
+	 * only registers with the platform once it is warmed up (see {@link WarmUp}).
+	 * </p>
+	 * <p>
+	 * A shutdown hook is registered that {@linkplain #drain() drains} all connections when the JVM is stopped,
+	 * e.g. with SIGTERM during a deployment.
 	 * </p>
 	 */
 	public static void initConnection() {
-		WebSocketHandler client = new WebSocketHandler(getWsUri());
-		MessageSender.setWebSocketHandler(client);
-
-		try {
-			client.connectBlocking(); // Establish connection synchronously
-		} catch (InterruptedException e) {
-			log.warn(e.getMessage());
-			System.exit(1);
+		Duration metricsInterval = ConfigLoader.getDuration("platform.metrics.interval", ChronoUnit.SECONDS, null);
+		if (metricsInterval != null) {
+			Metrics.startReporter(metricsInterval);
+		}
+
+		List<GameRegistration> registrations = GameRegistry.getRegistrations();
+		if (registrations.isEmpty()) {
+			throw new IllegalStateException("No game registered. Call GameRegistry.setGameFactory() first");
+		}
+
+		if (HANDLERS.isEmpty()) {
+			Runtime.getRuntime().addShutdownHook(new Thread(WebSocketInitiator::drain, "drain"));
+		}
+
+		registrations.forEach(WarmUp::run);
+
+		URI uri = getWsUri();
+		for (GameRegistration registration : registrations) {
+			WebSocketHandler client = new WebSocketHandler(uri, registration);
+			HANDLERS.add(client);
+			MessageSender.setDefault(HANDLERS.size() == 1 ? client.getMessageSender() : null);
+
+			try {
+				client.connectBlocking(); // Establish connection synchronously
+			} catch (InterruptedException e) {
+				log.warn(e.getMessage());
+				Thread.currentThread().interrupt();
+				return;
+			}
 		}
 	}
 
+	/**
+	 * Drains all connections in parallel and blocks until they are closed.
+	 * <p>
+	 * No new games are accepted anymore, running games may finish within {@code platform.drain.timeoutSeconds}
+	 * (default: 30), then the connections are closed cleanly. See {@link WebSocketHandler#drain(Duration)}.
+	 * </p>
+	 */
+	public static void drain() {
+		Duration timeout = getDrainTimeout();
+
+		List<Thread> drains = HANDLERS.stream()
+				.map(handler -> Thread.ofPlatform().start(() -> handler.drain(timeout)))
+				.toList();
+
+		for (Thread drain : drains) {
+			try {
+				drain.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Called after a connection was drained because of a platform error, e.g. an invalid token. Once no connection
+	 * is left, the process exits with status 2, so a supervisor does not mistake the failure for a clean shutdown.
+	 */
+	static void connectionFailed() {
+		if (HANDLERS.stream().noneMatch(handler -> handler.isOpen() || handler.isClosing())) {
+			log.error("No connection to the platform left after an error, exiting with status {}", FAILURE_EXIT_STATUS);
+			System.exit(FAILURE_EXIT_STATUS);
+		}
+	}
+
+	static Duration getDrainTimeout() {
+		return ConfigLoader.getDuration("platform.drain.timeoutSeconds", ChronoUnit.SECONDS, DEFAULT_DRAIN_TIMEOUT);
+	}
+
 	private URI getWsUri() {
 		String host = ConfigLoader.get("platform.host");
 		String port = ConfigLoader.get("platform.port");
-		boolean ssl = Boolean.parseBoolean(ConfigLoader.get("platform.ssl"));
+		boolean ssl = ConfigLoader.getBoolean("platform.ssl");
 
 		StringBuilder uriStringBuilder = new StringBuilder();
 		uriStringBuilder.append(ssl ? "wss" : "ws").append("://").append(host);
@@ -0,0 +1,75 @@
+package de.aschallenberg.gamelibrary;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.aschallenberg.communication.dto.GameData;
+import de.aschallenberg.gamelibrary.websocket.WebSocketInitiator;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prüft die Batch-Frames gegen die lokale Plattform (Profil {@code batching-check}). {@link Main} handelt Batching
+ * aus, die lokale Plattform spielt ein 3x3-Spiel mit ihm und zählt dabei die empfangenen Frames und Nachrichten. Da
+ * das Spiel pro Zug Log, Game-Update und den nächsten Zug sendet, müssen es weniger Frames als Nachrichten sein.
+ * Andernfalls endet der Lauf mit dem Status 1.
+ */
+@Log4j2
+public class BatchingRun {
+	private static final int DEFAULT_PORT = 18082;
+	private static final String MODULE = "Klassisches 3x3 Feld für 2 Bots";
+
+	public static void main(String[] args) throws InterruptedException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+
+		LocalPlatformServer server = new LocalPlatformServer(port);
+		server.playGame(gameData());
+		server.start();
+		if (!server.awaitStart(10, TimeUnit.SECONDS)) {
+			throw new IllegalStateException("Local platform did not start");
+		}
+
+		boolean passed = false;
+		try {
+			Main.main(new String[]{
+					"--host", "localhost",
+					"--port", String.valueOf(port),
+					"--token", UUID.randomUUID().toString(),
+					"--batching", "true"
+			});
+
+			if (!server.awaitGameOver(30, TimeUnit.SECONDS)) {
+				log.error("Game did not finish");
+			} else {
+				WebSocketInitiator.drain();
+				server.awaitClose(10, TimeUnit.SECONDS);
+
+				long frames = server.getReceivedFrames().get();
+				long messages = server.getReceivedMessages().get();
+				passed = frames < messages;
+				log.info("Received {} messages in {} frames", messages, frames);
+			}
+		} finally {
+			server.stop();
+		}
+
+		if (!passed) {
+			log.error("Messages were not batched");
+			System.exit(1);
+		}
+	}
+
+	private static GameData gameData() {
+		List<Map<String, String>> bots = List.of(
+				Map.of("name", "Bot 1", "ownerName", "local"),
+				Map.of("name", "Bot 2", "ownerName", "local")
+		);
+
+		return new ObjectMapper()
+				.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+				.convertValue(Map.of("module", MODULE, "bots", bots), GameData.class);
+	}
+}
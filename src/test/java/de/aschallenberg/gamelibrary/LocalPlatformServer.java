@@ -0,0 +1,185 @@
+package de.aschallenberg.gamelibrary;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.aschallenberg.communication.dto.BotData;
+import de.aschallenberg.communication.dto.GameData;
+import de.aschallenberg.communication.messages.Message;
+import de.aschallenberg.communication.messages.MessageFactory;
+import de.aschallenberg.communication.messages.payloads.*;
+import de.aschallenberg.gamelibrary.websocket.WebSocketHandler;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.handshake.ServerHandshakeBuilder;
+import org.java_websocket.server.WebSocketServer;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimaler lokaler Ersatz für die Plattform. Er beantwortet die Registrierung, damit Startzeit-Messungen und
+ * AppCDS-Trainingsläufe ohne echte Plattform möglich sind.
+ * <p>
+ * Bietet das Spiel Batch-Frames an ({@link WebSocketHandler#BATCHING_HEADER}), nimmt der Server sie an, packt
+ * eingehende Batches aus und zählt Frames und Nachrichten.
+ * </p>
+ * <p>
+ * Mit {@link #playGame(GameData)} startet der Server nach der Registrierung ein TicTacToe-Spiel und zieht für die Bots
+ * jeweils auf das erste freie Feld, bis das Spiel beendet oder abgebrochen wird.
+ * </p>
+ */
+@Log4j2
+public class LocalPlatformServer extends WebSocketServer {
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final CountDownLatch closed = new CountDownLatch(1);
+	private final CountDownLatch gameOver = new CountDownLatch(1);
+
+	private GameData gameToPlay;
+
+	@Getter
+	private final AtomicLong receivedFrames = new AtomicLong();
+	@Getter
+	private final AtomicLong receivedMessages = new AtomicLong();
+
+	public LocalPlatformServer(int port) {
+		super(new InetSocketAddress("localhost", port));
+		setReuseAddr(true);
+	}
+
+	@Override
+	public void onOpen(WebSocket conn, ClientHandshake handshake) {
+		log.info("Game connected from {}", conn.getRemoteSocketAddress());
+	}
+
+	@Override
+	public ServerHandshakeBuilder onWebsocketHandshakeReceivedAsServer(
+			WebSocket conn,
+			Draft draft,
+			ClientHandshake request
+	) throws InvalidDataException {
+		ServerHandshakeBuilder response = super.onWebsocketHandshakeReceivedAsServer(conn, draft, request);
+		if (request.hasFieldValue(WebSocketHandler.BATCHING_HEADER)) {
+			response.put(WebSocketHandler.BATCHING_HEADER, "1");
+		}
+		return response;
+	}
+
+	@Override
+	public void onMessage(WebSocket conn, String messageString) {
+		final List<Message> messages;
+		try {
+			messages = messageString.startsWith("[")
+					? List.of(mapper.readValue(messageString, Message[].class))
+					: List.of(mapper.readValue(messageString, Message.class));
+		} catch (JsonProcessingException e) {
+			log.warn("Could not parse message: {}", e.getMessage());
+			return;
+		}
+
+		receivedFrames.incrementAndGet();
+		receivedMessages.addAndGet(messages.size());
+
+		for (Message message : messages) {
+			switch (message.getPayload()) {
+				case final RegisterRequestPayload payload -> {
+					send(conn, MessageFactory.createMessage(new RegisterResponsePayload()));
+					if (gameToPlay != null) {
+						send(conn, MessageFactory.createMessage(new GameStartPayload(gameToPlay)));
+					}
+				}
+				case final MovePayload<?> payload when gameToPlay != null -> answerMove(conn, payload.getValue());
+				case final GameFinishedPayload payload -> gameOver.countDown();
+				case final GameInterruptPayload payload -> gameOver.countDown();
+				default -> {
+					// Logs, Game-Updates usw. werden nur gezählt
+				}
+			}
+		}
+	}
+
+	/**
+	 * Startet nach der Registrierung dieses Spiel und zieht selbst für dessen Bots.
+	 */
+	public void playGame(GameData gameData) {
+		this.gameToPlay = gameData;
+	}
+
+	/**
+	 * Zieht für den Bot, der laut {@link Move#getPlayer()} am Zug ist, auf das erste freie Feld.
+	 */
+	private void answerMove(WebSocket conn, Object moveRequest) {
+		JsonNode move = mapper.valueToTree(moveRequest);
+		JsonNode board = move.get("board");
+
+		int cell = 0;
+		while (cell < board.size() && board.get(cell).asInt() != 0) {
+			cell++;
+		}
+
+		BotData bot = gameToPlay.getBots().get(move.get("player").asInt());
+		ObjectNode message = mapper.valueToTree(MessageFactory.createMessage(new MovePayload<>(cell)));
+		ObjectNode meta = message.get("meta") instanceof ObjectNode existing ? existing : message.putObject("meta");
+		meta.set("sender", mapper.valueToTree(bot));
+
+		try {
+			conn.send(mapper.writeValueAsString(message));
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Message could not be converted to JSON: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+		closed.countDown();
+	}
+
+	@Override
+	public void onError(WebSocket conn, Exception ex) {
+		log.error(ex.getMessage());
+	}
+
+	@Override
+	public void onStart() {
+		log.info("Local platform listening on {}", getAddress());
+		started.countDown();
+	}
+
+	/**
+	 * Wartet, bis der Server Verbindungen annimmt.
+	 */
+	public boolean awaitStart(long timeout, TimeUnit unit) throws InterruptedException {
+		return started.await(timeout, unit);
+	}
+
+	/**
+	 * Wartet, bis das mit {@link #playGame(GameData)} gestartete Spiel beendet oder abgebrochen wurde.
+	 */
+	public boolean awaitGameOver(long timeout, TimeUnit unit) throws InterruptedException {
+		return gameOver.await(timeout, unit);
+	}
+
+	/**
+	 * Wartet, bis das erste verbundene Spiel seine Verbindung geschlossen hat.
+	 */
+	public boolean awaitClose(long timeout, TimeUnit unit) throws InterruptedException {
+		return closed.await(timeout, unit);
+	}
+
+	private void send(WebSocket conn, Message message) {
+		try {
+			conn.send(mapper.writeValueAsString(message));
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Message could not be converted to JSON: " + e.getMessage(), e);
+		}
+	}
+}
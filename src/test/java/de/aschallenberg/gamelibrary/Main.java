@@ -3,20 +3,28 @@ package de.aschallenberg.gamelibrary;
 
 import de.aschallenberg.gamelibrary.config.ConfigLoader;
 import de.aschallenberg.gamelibrary.game.GameRegistry;
+import de.aschallenberg.gamelibrary.modules.TicTacToe3x3;
+import de.aschallenberg.gamelibrary.modules.TicTacToe5x5;
 import de.aschallenberg.gamelibrary.websocket.WebSocketInitiator;
 
 public class Main {
 
 	/**
-	 * Setzte hier deine Klasse, die von {@link de.aschallenberg.gamelibrary.game.Game} erbt, als GameClass in der GameRegistry.
-	 * Ohne das kann das Framework deine Klasse nicht instanziieren.
+	 * Setzte hier deine Klasse, die von {@link de.aschallenberg.gamelibrary.game.Game} erbt, als GameFactory in der GameRegistry.
+	 * Ohne das kann das Framework deine Klasse nicht instanziieren. Eine Factory kommt im Gegensatz zu
+	 * {@code setGameClass} ohne Reflection aus. Hier wird pro Modul eine eigene Factory registriert, sodass das Spiel
+	 * das Modul nicht selbst anhand seines Namens auswählen muss. Mit {@code warmUp} spielen synthetische Bots vor der
+	 * Registrierung Aufwärm-Spiele, sofern {@code platform.warmup.matches} gesetzt ist.
 	 * Mit WebSocketInitiator.initConnection() baust du die WebSocket Verbindung zur Plattform auf. Stelle sicher,
 	 * dass deine config.properties korrekt konfiguriert ist, bevor die Verbindung aufgebaut wird.
 	 *
 	 * @param args Command line Arguments, die ggf. die config.properties überschreiben.
 	 */
 	public static void main(String[] args) {
-		GameRegistry.setGameClass(TicTacToe.class);
+		GameRegistry.register()
+				.module("Klassisches 3x3 Feld für 2 Bots", () -> new TicTacToe(new TicTacToe3x3()))
+				.module("Größeres 5x5 Feld für 2 Bots", () -> new TicTacToe(new TicTacToe5x5()))
+				.warmUp(TicTacToe::warmUpMove);
 		ConfigLoader.load(args);
 		WebSocketInitiator.initConnection();
 	}
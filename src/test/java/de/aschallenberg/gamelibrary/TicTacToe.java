@@ -1,36 +1,30 @@
 package de.aschallenberg.gamelibrary;
 
 
+import com.fasterxml.jackson.databind.JsonNode;
 import de.aschallenberg.communication.dto.BotData;
 import de.aschallenberg.gamelibrary.game.Game;
-import de.aschallenberg.gamelibrary.modules.TicTacToe3x3;
-import de.aschallenberg.gamelibrary.modules.TicTacToe5x5;
 import de.aschallenberg.gamelibrary.modules.TicTacToeModule;
 import lombok.extern.log4j.Log4j2;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Log4j2
 public class TicTacToe extends Game {
-	TicTacToeModule module;
+	private final TicTacToeModule module;
 	private int[] board;
 	private int currentBotIndex;
 
+	public TicTacToe(TicTacToeModule module) {
+		this.module = module;
+	}
 
 	@Override
 	public void onStartGame() {
-		String moduleString = getGameData().getModule();
-
-		if (moduleString.equals("Klassisches 3x3 Feld für 2 Bots")) {
-			module = new TicTacToe3x3();
-		} else if (moduleString.equals("Größeres 5x5 Feld für 2 Bots")) {
-			module = new TicTacToe5x5();
-		} else {
-			throw new RuntimeException("Unknown module: " + moduleString);
-		}
-
 		resetGame(); // Initialize board and currentBotIndex
 		logInit();
 		sendMove();
@@ -193,6 +187,27 @@ public class TicTacToe extends Game {
 		return Map.of(bots.get(0), 1, bots.get(1), 1); // Draw: both get 1 point
 	}
 
+	@Override
+	public long estimateMemoryBytes() {
+		long boardBytes = board == null ? 0 : 16L + board.length * (long) Integer.BYTES;
+		return super.estimateMemoryBytes() + boardBytes;
+	}
+
+	/**
+	 * Zug der synthetischen Bots beim Warm-up: ein zufälliges freies Feld.
+	 */
+	static Object warmUpMove(final BotData bot, final JsonNode moveRequest) {
+		JsonNode board = moveRequest.get("board");
+		List<Integer> freeCells = new ArrayList<>();
+		for (int i = 0; i < board.size(); i++) {
+			if (board.get(i).asInt() == 0) {
+				freeCells.add(i);
+			}
+		}
+
+		return freeCells.isEmpty() ? null : freeCells.get(ThreadLocalRandom.current().nextInt(freeCells.size()));
+	}
+
 	private BotData getCurrentBot() {
 		return getGameData().getBots().get(currentBotIndex);
 	}
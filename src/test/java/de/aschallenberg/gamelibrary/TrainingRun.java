@@ -0,0 +1,38 @@
+package de.aschallenberg.gamelibrary;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trainingslauf für das AppCDS-Archiv (Profil {@code appcds}). Startet die lokale Plattform, lässt {@link Main} sich
+ * registrieren und beendet sich danach, sodass die JVM beim Beenden das Archiv schreibt.
+ */
+@Log4j2
+public class TrainingRun {
+	private static final int DEFAULT_PORT = 18080;
+
+	public static void main(String[] args) throws InterruptedException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+
+		LocalPlatformServer server = new LocalPlatformServer(port);
+		server.start();
+		if (!server.awaitStart(10, TimeUnit.SECONDS)) {
+			throw new IllegalStateException("Local platform did not start");
+		}
+
+		Main.main(new String[]{
+				"--host", "localhost",
+				"--port", String.valueOf(port),
+				"--token", UUID.randomUUID().toString(),
+				"--training", "true"
+		});
+
+		if (!server.awaitClose(30, TimeUnit.SECONDS)) {
+			log.warn("Game did not close its connection after the registration");
+		}
+
+		server.stop();
+	}
+}
@@ -0,0 +1,101 @@
+package de.aschallenberg.gamelibrary.benchmark;
+
+import de.aschallenberg.gamelibrary.LocalPlatformServer;
+import de.aschallenberg.gamelibrary.Main;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misst die Zeit vom Start der JVM bis zu „Successfully registered“ gegen die lokale Plattform (Profil
+ * {@code startup-benchmark}).
+ * <p>
+ * Argumente: {@code <Anzahl Läufe> [<AppCDS-Archiv>]}. Existiert das Archiv, wird jeder Lauf einmal ohne und einmal
+ * mit Archiv gemessen.
+ * </p>
+ */
+@Log4j2
+public class StartupBenchmark {
+	private static final int PORT = 18081;
+	private static final String REGISTERED = "Successfully registered";
+
+	public static void main(String[] args) throws Exception {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		Path archive = args.length > 1 ? Path.of(args[1]) : null;
+
+		LocalPlatformServer server = new LocalPlatformServer(PORT);
+		server.start();
+		if (!server.awaitStart(10, TimeUnit.SECONDS)) {
+			throw new IllegalStateException("Local platform did not start");
+		}
+
+		try {
+			report("default", measure(runs, null));
+
+			if (archive != null && Files.exists(archive)) {
+				report("appcds", measure(runs, archive));
+			} else if (archive != null) {
+				log.warn("Archive {} does not exist. Run the appcds profile first", archive);
+			}
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static long[] measure(int runs, Path archive) throws IOException, InterruptedException {
+		long[] millis = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			millis[i] = measureOnce(archive);
+		}
+		return millis;
+	}
+
+	private static long measureOnce(Path archive) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		if (archive != null) {
+			command.add("-XX:SharedArchiveFile=" + archive);
+		}
+		command.addAll(List.of(
+				"-cp", System.getProperty("java.class.path"),
+				Main.class.getName(),
+				"--host", "localhost",
+				"--port", String.valueOf(PORT),
+				"--token", UUID.randomUUID().toString(),
+				"--training", "true"
+		));
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.contains(REGISTERED)) {
+					return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+				}
+			}
+		} finally {
+			process.destroy();
+			process.waitFor();
+		}
+
+		throw new IllegalStateException("Game exited without registering");
+	}
+
+	private static void report(String name, long[] millis) {
+		Arrays.sort(millis);
+		log.info("{}: min {} ms, median {} ms, max {} ms ({} runs)",
+				name, millis[0], millis[millis.length / 2], millis[millis.length - 1], millis.length);
+	}
+}
@@ -0,0 +1,90 @@
+package de.aschallenberg.gamelibrary.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+	@Test
+	void smallValuesHaveTheirOwnBucket() {
+		for (long value = 0; value < 8; value++) {
+			assertEquals(value, LatencyHistogram.indexOf(value));
+			assertEquals(value, LatencyHistogram.upperBoundOf((int) value));
+		}
+	}
+
+	@Test
+	void largerValuesShareLogLinearBuckets() {
+		assertEquals(8, LatencyHistogram.indexOf(8));
+		assertEquals(15, LatencyHistogram.indexOf(15));
+		assertEquals(16, LatencyHistogram.indexOf(16));
+		assertEquals(16, LatencyHistogram.indexOf(17));
+		assertEquals(17, LatencyHistogram.indexOf(18));
+
+		assertEquals(8, LatencyHistogram.upperBoundOf(8));
+		assertEquals(17, LatencyHistogram.upperBoundOf(16));
+		assertEquals(19, LatencyHistogram.upperBoundOf(17));
+	}
+
+	@Test
+	void upperBoundIsWithinRelativeError() {
+		for (long value = 0; value < 1 << 20; value += 7) {
+			long upperBound = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(value));
+			assertTrue(upperBound >= value, () -> "upper bound below " + value);
+			assertTrue(upperBound - value <= value / 8, () -> "upper bound too far above " + value);
+		}
+	}
+
+	@Test
+	void percentilesReportUpperBoundCappedAtMax() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 100; value++) {
+			histogram.record(value);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(50.5, histogram.getMean());
+		assertEquals(1, histogram.getPercentile(0));
+		assertEquals(51, histogram.getPercentile(50));
+		assertEquals(100, histogram.getPercentile(99));
+		assertEquals(100, histogram.getPercentile(100));
+	}
+
+	@Test
+	void emptyHistogramReportsZero() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		assertEquals(0, histogram.getPercentile(99));
+		assertEquals(0, histogram.getMean());
+		assertEquals(0, histogram.getMax());
+	}
+
+	@Test
+	void negativeValuesAreRecordedAsZero() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		histogram.recordNanos(-5_000);
+
+		assertEquals(2, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+
+	@Test
+	void addAndReset() {
+		LatencyHistogram first = new LatencyHistogram();
+		LatencyHistogram second = new LatencyHistogram();
+		first.record(10);
+		second.record(1_000);
+
+		first.add(second);
+		assertEquals(2, first.getCount());
+		assertEquals(1_000, first.getMax());
+		assertEquals(1_000, first.getPercentile(100));
+
+		first.reset();
+		assertEquals(0, first.getCount());
+		assertEquals(0, first.getPercentile(50));
+	}
+}
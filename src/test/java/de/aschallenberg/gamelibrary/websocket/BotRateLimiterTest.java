@@ -0,0 +1,82 @@
+package de.aschallenberg.gamelibrary.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.aschallenberg.communication.dto.BotData;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BotRateLimiterTest {
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final BotData bot = bot("Bot 1");
+
+	@Test
+	void dropAllowsTheBurstAndRejectsTheNextMessage() {
+		BotRateLimiter limiter = new BotRateLimiter(1, 3, BotRateLimiter.Policy.DROP, 1000);
+
+		assertEquals(0, limiter.acquire(bot));
+		assertEquals(0, limiter.acquire(bot));
+		assertEquals(0, limiter.acquire(bot));
+		assertEquals(-1, limiter.acquire(bot));
+	}
+
+	@Test
+	void rejectedMessagesDoNotConsumeTokens() {
+		BotRateLimiter limiter = new BotRateLimiter(1, 1, BotRateLimiter.Policy.DROP, 1000);
+
+		assertEquals(0, limiter.acquire(bot));
+		for (int i = 0; i < 10; i++) {
+			assertEquals(-1, limiter.acquire(bot));
+		}
+
+		limiter.reset();
+		assertEquals(0, limiter.acquire(bot));
+	}
+
+	@Test
+	void delayReservesTokensUpToTheMaximumDelay() {
+		BotRateLimiter limiter = new BotRateLimiter(1, 1, BotRateLimiter.Policy.DELAY, 2000);
+
+		assertEquals(0, limiter.acquire(bot));
+
+		long firstWait = limiter.acquire(bot);
+		assertTrue(firstWait > 0 && firstWait <= SECOND, () -> "unexpected wait " + firstWait);
+
+		long secondWait = limiter.acquire(bot);
+		assertTrue(secondWait > SECOND && secondWait <= 2 * SECOND, () -> "unexpected wait " + secondWait);
+
+		assertEquals(-1, limiter.acquire(bot));
+	}
+
+	@Test
+	void botsHaveSeparateBuckets() {
+		BotRateLimiter limiter = new BotRateLimiter(1, 1, BotRateLimiter.Policy.DROP, 1000);
+		BotData other = bot("Bot 2");
+
+		assertEquals(0, limiter.acquire(bot));
+		assertEquals(-1, limiter.acquire(bot));
+		assertEquals(0, limiter.acquire(other));
+	}
+
+	@Test
+	void botIsDisqualifiedOnlyOncePerGame() {
+		BotRateLimiter limiter = new BotRateLimiter(1, 1, BotRateLimiter.Policy.DISQUALIFY, 1000);
+
+		assertTrue(limiter.disqualify(bot));
+		assertFalse(limiter.disqualify(bot));
+
+		limiter.reset();
+		assertTrue(limiter.disqualify(bot));
+	}
+
+	private BotData bot(String name) {
+		return mapper.convertValue(Map.of("name", name, "ownerName", "Owner"), BotData.class);
+	}
+}
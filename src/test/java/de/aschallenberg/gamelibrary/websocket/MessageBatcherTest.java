@@ -0,0 +1,94 @@
+package de.aschallenberg.gamelibrary.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MessageBatcherTest {
+	private static final long LINGER_MILLIS = 60_000;
+
+	private final List<String> frames = new ArrayList<>();
+
+	@Test
+	void singleMessageIsSentWithoutArray() {
+		MessageBatcher batcher = batcher(100);
+
+		batcher.add(utf8("{\"a\":1}"));
+		batcher.flush();
+
+		assertEquals(List.of("{\"a\":1}"), frames);
+	}
+
+	@Test
+	void messagesAreFramedAsArray() {
+		MessageBatcher batcher = batcher(100);
+
+		batcher.add(utf8("{\"a\":1}"));
+		batcher.add(utf8("{\"b\":2}"));
+		batcher.add(utf8("{\"c\":3}"));
+		batcher.flush();
+
+		assertEquals(List.of("[{\"a\":1},{\"b\":2},{\"c\":3}]"), frames);
+	}
+
+	@Test
+	void flushWithoutMessagesSendsNothing() {
+		MessageBatcher batcher = batcher(100);
+
+		batcher.flush();
+
+		assertEquals(List.of(), frames);
+	}
+
+	@Test
+	void batchIsSentBeforeItExceedsMaxBytes() {
+		MessageBatcher batcher = batcher(10);
+
+		batcher.add(utf8("12345"));
+		batcher.add(utf8("678"));
+		batcher.flush();
+
+		assertEquals(List.of("12345", "678"), frames);
+	}
+
+	@Test
+	void fullBatchIsSentRightAway() {
+		MessageBatcher batcher = batcher(10);
+
+		batcher.add(utf8("12345678"));
+
+		assertEquals(List.of("12345678"), frames);
+	}
+
+	@Test
+	void oversizedMessageIsSentDirectlyWithoutGrowingTheBuffer() {
+		MessageBatcher batcher = batcher(10);
+		int capacity = batcher.capacity();
+
+		batcher.add(utf8("ab"));
+		batcher.add(utf8("0123456789abcdef"));
+		batcher.add(utf8("cd"));
+		batcher.add(utf8("ef"));
+		batcher.flush();
+
+		assertEquals(List.of("ab", "0123456789abcdef", "[cd,ef]"), frames);
+		assertEquals(capacity, batcher.capacity());
+	}
+
+	private MessageBatcher batcher(int maxBytes) {
+		return new MessageBatcher(
+				frame -> frames.add(StandardCharsets.UTF_8.decode(frame).toString()),
+				maxBytes,
+				LINGER_MILLIS
+		);
+	}
+
+	private static ByteBuffer utf8(String json) {
+		return ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,91 @@
+package de.aschallenberg.gamelibrary.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.aschallenberg.communication.dto.BotData;
+import de.aschallenberg.communication.messages.Message;
+import de.aschallenberg.communication.messages.MessageFactory;
+import de.aschallenberg.communication.messages.payloads.GameUpdatePayload;
+import de.aschallenberg.communication.messages.payloads.MovePayload;
+import de.aschallenberg.gamelibrary.Move;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht die bisherige Serialisierung über {@code writeValueAsString} mit dem {@link MessageEncoder}
+ * (Profil {@code benchmark}, mit {@code -prof gc} für die Allokationen pro Nachricht).
+ * <p>
+ * Vor der Messung wird geprüft, dass der {@link MessageEncoder} byteweise dasselbe liefert wie
+ * {@code writeValueAsBytes}, auch nach einer größeren Nachricht im wiederverwendeten Puffer.
+ * </p>
+ * <p>
+ * Gemessen wird nur die Serialisierung. Nachricht, Payload und der Versand über Java-WebSocket allokieren weiterhin pro
+ * Nachricht.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageEncoderBenchmark {
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private List<BotData> bots;
+	private List<BotData> recipient;
+	private Move move;
+
+	@Setup
+	public void setUp() throws JsonProcessingException {
+		bots = List.of(bot("Bot 1"), bot("Bot 2"));
+		recipient = List.of(bots.get(0));
+		move = new Move(new int[9], 0);
+
+		verify(MessageFactory.createMessage(new GameUpdatePayload<>(new int[1024]), bots));
+		verify(MessageFactory.createMessage(new MovePayload<>(move), recipient));
+		verify(MessageFactory.createMessage(new GameUpdatePayload<>(move.getBoard()), bots));
+	}
+
+	@Benchmark
+	public String moveAsString() throws JsonProcessingException {
+		return mapper.writeValueAsString(MessageFactory.createMessage(new MovePayload<>(move), recipient));
+	}
+
+	@Benchmark
+	public ByteBuffer moveWithEncoder() {
+		return MessageEncoder.get().encode(new MovePayload<>(move), recipient);
+	}
+
+	@Benchmark
+	public String gameUpdateAsString() throws JsonProcessingException {
+		return mapper.writeValueAsString(MessageFactory.createMessage(new GameUpdatePayload<>(move.getBoard()), bots));
+	}
+
+	@Benchmark
+	public ByteBuffer gameUpdateWithEncoder() {
+		return MessageEncoder.get().encode(new GameUpdatePayload<>(move.getBoard()), bots);
+	}
+
+	private void verify(Message message) throws JsonProcessingException {
+		ByteBuffer encoded = MessageEncoder.get().encode(message);
+		byte[] expected = mapper.writeValueAsBytes(message);
+
+		byte[] actual = new byte[encoded.remaining()];
+		encoded.get(actual);
+		if (!Arrays.equals(actual, expected)) {
+			throw new IllegalStateException("MessageEncoder differs from writeValueAsBytes: "
+					+ new String(actual, StandardCharsets.UTF_8) + " != " + new String(expected, StandardCharsets.UTF_8));
+		}
+	}
+
+	private BotData bot(String name) {
+		return mapper.convertValue(Map.of("name", name, "ownerName", "Owner"), BotData.class);
+	}
+}